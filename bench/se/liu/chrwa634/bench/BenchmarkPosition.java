@@ -0,0 +1,30 @@
+package se.liu.chrwa634.bench;
+
+/**
+ * This enum holds the positions that the benchmarks are run on. The start position and Kiwipete are the usual perft
+ * positions, the endgames are from EndGamePositionTest and the castling positions are from KingTest. Since the
+ * positions are fixed the numbers of two runs could be compared.
+ */
+public enum BenchmarkPosition
+{
+    START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"),
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+    ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"),
+    PINNED_BISHOP("rnbqk1nr/pppp1ppp/8/4p3/1b1PP3/8/PPP2PPP/RNBQKBNR w KQkq - 1 3"),
+    HIDDEN_CHECKMATE("k1r4Q/8/K1b5/8/8/8/8/1Q5B w - - 0 1"),
+    INSUFFICIENT_PIECES("7K/P5n1/1n6/8/8/1N6/p5N1/7k w - - 0 1"),
+    SAME_COLOR_BISHOPS("6rk/PP6/B7/1B6/B7/1B6/B7/K7 w - - 0 1"),
+    FIFTY_MOVES("7k/p4n2/8/8/8/1b6/P4N2/7K w - - 46 1"),
+    CASTLING_BLOCKED("r1N1kn1r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w - - 0 1"),
+    CASTLING_ATTACKED("r3k2r/8/1N6/2b3B1/8/6n1/8/R3K2R w KQkq - 0 1");
+
+    private final String fen;
+
+    BenchmarkPosition(String fen) {
+	this.fen = fen;
+    }
+
+    public String getFen() {
+	return fen;
+    }
+}
@@ -0,0 +1,41 @@
+package se.liu.chrwa634.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the benchmarks with the GC profiler, so that the bytes allocated per operation
+ * (gc.alloc.rate.norm) are printed next to the throughput. The results are also written as JSON so that a run before
+ * and after a change could be compared.
+ *
+ * Example: BenchmarkRunner "FenBenchmark" fen-before.json
+ */
+public final class BenchmarkRunner
+{
+    private static final String ALL_BENCHMARKS = "se\\.liu\\.chrwa634\\.bench\\..*";
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    /**
+     * This method runs the benchmarks.
+     * @param args A regular expression of the benchmarks to run and the file the results are written to, both are
+     *             optional.
+     * @throws RunnerException If JMH could not run the benchmarks.
+     */
+    public static void main(String[] args) throws RunnerException {
+	String include = args.length > 0 ? args[0] : ALL_BENCHMARKS;
+	String resultFile = args.length > 1 ? args[1] : DEFAULT_RESULT_FILE;
+	Options options = new OptionsBuilder()
+		.include(include)
+		.addProfiler(GCProfiler.class)
+		.resultFormat(ResultFormatType.JSON)
+		.result(resultFile)
+		.build();
+	new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+package se.liu.chrwa634.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.GameOverType;
+import se.liu.chrwa634.pieces.Side;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the checks of BoardScanner that are done after every move, that is if a square is attacked and
+ * if the game is over.
+ *
+ * BoardScanner caches if a position has a legal move, and the benchmark checks the same position over and over, so
+ * getGameOver removes the position from the cache before every check to measure the check itself. getGameOverCached
+ * keeps the cache, which is what a position that is checked again costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class BoardScannerBenchmark
+{
+    @Param private BenchmarkPosition position = BenchmarkPosition.START;
+
+    private Board board = null;
+    private Side enemy = null;
+
+    @Setup public void setUp() {
+	board = new Board();
+	board.loadFen(position.getFen());
+	enemy = board.getIsWhiteTurn() ? Side.BLACK : Side.WHITE;
+    }
+
+    /**
+     * This method asks if every square of the board is attacked by the side that is not to move.
+     * @return The amount of attacked squares.
+     */
+    @Benchmark public int isSquareAttacked() {
+	int attackedSquares = 0;
+	for (int rank = 0; rank < Board.getBoardSize(); rank++) {
+	    for (int file = 0; file < Board.getBoardSize(); file++) {
+		if (board.isSquareAttacked(file, rank, enemy)) {
+		    attackedSquares++;
+		}
+	    }
+	}
+	return attackedSquares;
+    }
+
+    /**
+     * This method checks if the game is over with BoardScanner.getGameOver, without the cached answer of the position.
+     * @return The type of game over.
+     */
+    @Benchmark public GameOverType getGameOver() {
+	board.forgetValidMove();
+	board.setGameOver();
+	return board.getGameOverType();
+    }
+
+    /**
+     * This method checks if the game is over with BoardScanner.getGameOver, where the legal move is taken from the
+     * cache after the first call.
+     * @return The type of game over.
+     */
+    @Benchmark public GameOverType getGameOverCached() {
+	board.setGameOver();
+	return board.getGameOverType();
+    }
+}
@@ -0,0 +1,66 @@
+package se.liu.chrwa634.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.liu.chrwa634.main.Board;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures how fast FenConverter loads a FEN string on a board and converts a board to a FEN string.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class FenBenchmark
+{
+    @Param private BenchmarkPosition position = BenchmarkPosition.START;
+
+    private Board board = null;
+    private StringBuilder fen = null;
+
+    @Setup public void setUp() {
+	board = new Board();
+	board.loadFen(position.getFen());
+	fen = new StringBuilder();
+    }
+
+    /**
+     * This method loads the FEN string of the position on the board.
+     * @return The board, so the loading is not removed by the compiler.
+     */
+    @Benchmark public Board loadFen() {
+	board.loadFen(position.getFen());
+	return board;
+    }
+
+    /**
+     * This method converts the board to a new FEN string.
+     * @return The FEN string.
+     */
+    @Benchmark public String convertBoardToFen() {
+	return board.convertBoardToFen();
+    }
+
+    /**
+     * This method writes the FEN string of the board into a builder that is reused, which does not create a string.
+     * @return The builder with the FEN string.
+     */
+    @Benchmark public StringBuilder appendFen() {
+	fen.setLength(0);
+	board.appendFen(fen);
+	return fen;
+    }
+}
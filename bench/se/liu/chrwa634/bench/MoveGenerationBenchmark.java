@@ -0,0 +1,71 @@
+package se.liu.chrwa634.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.Move;
+import se.liu.chrwa634.pieces.Piece;
+import se.liu.chrwa634.pieces.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures how fast the moves of a position are found. One operation is finding the moves of every piece of
+ * the side to move, like the GUI does when it looks for a valid move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class MoveGenerationBenchmark
+{
+    @Param private BenchmarkPosition position = BenchmarkPosition.START;
+
+    private Board board = null;
+    private List<Piece> pieces = null;
+    private List<Move> possibleMoves = null;
+
+    @Setup public void setUp() {
+	board = new Board();
+	board.loadFen(position.getFen());
+	Side side = board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+	pieces = new ArrayList<>(board.getPlayerPieces(side));
+	possibleMoves = new ArrayList<>();
+	for (Piece piece : pieces) {
+	    possibleMoves.addAll(piece.getValidMoves(board, false));
+	}
+    }
+
+    /**
+     * This method finds the legal moves of every piece with Piece.getValidMoves.
+     * @param blackhole Keeps the moves from being removed by the compiler.
+     */
+    @Benchmark public void getValidMoves(Blackhole blackhole) {
+	for (Piece piece : pieces) {
+	    blackhole.consume(piece.getValidMoves(board, true));
+	}
+    }
+
+    /**
+     * This method removes the moves that leave the king in check from all the possible moves of the side to move,
+     * which is what BoardScanner.removeInvalidMoves does by performing every move on the board.
+     * @return The legal moves.
+     */
+    @Benchmark public List<Move> removeInvalidMoves() {
+	return board.removeInvalidMove(possibleMoves);
+    }
+}
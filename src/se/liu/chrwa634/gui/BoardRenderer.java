@@ -0,0 +1,107 @@
+package se.liu.chrwa634.gui;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.Square;
+import se.liu.chrwa634.pieces.Piece;
+import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.Side;
+
+import java.awt.*;
+
+/**
+ * This class draws a board with AWT. The rules of the game in the main and pieces packages do not know how they are
+ * drawn, this class reads the squares and pieces of the board and draws them. The class has two constants SQUARE_SIZE
+ * and SQUARE_SELECT_SIZE. SQUARE_SIZE is the length of a side of a drawn square and SQUARE_SELECT_SIZE is the
+ * diameter of the marker of a selected square.
+ */
+public class BoardRenderer
+{
+    private static final int SQUARE_SIZE = 80;
+    private static final int SQUARE_SELECT_SIZE = 20;
+    private static final Color[] GUI_COLORS = {new Color(0xFFD9D9), new Color(0x8E2CA0)};
+
+    /**
+     * This method gets the SQUARE_SIZE constant of the renderer.
+     * @return The SQUARE_SIZE of the renderer.
+     */
+    public static int getSquareSize() {
+        return SQUARE_SIZE;
+    }
+
+    /**
+     * This method draws the board by going through all the squares and drawing them. And if the square is occupied
+     * than its piece is drawn on top of it.
+     * @param board The board that will be drawn.
+     * @param graphics The graphics which will be drawn on.
+     */
+    public void draw(Board board, Graphics graphics) {
+        for (int rank = 0; rank < Board.getBoardSize(); rank++) {
+            for (int file = 0; file < Board.getBoardSize(); file++) {
+                Square square = board.getSquare(file, rank);
+                drawSquare(board, square, graphics);
+                if (square.isOccupied()) {
+                    drawPiece(square.getPiece(), graphics);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method draws a square. If the square is selected then we draw a marker. If the square is selected and
+     * there is a piece occupying the square then we draw a pink rectangle, which represents that the move would
+     * capture the piece that is currently occupying the square.
+     * @param board The board of the square.
+     * @param square The square that will be drawn.
+     * @param graphics The graphics object which would be drawn on.
+     */
+    private void drawSquare(Board board, Square square, Graphics graphics) {
+        int xDraw = square.getFile() * SQUARE_SIZE;
+        int yDraw = square.getRank() * SQUARE_SIZE;
+        graphics.setColor(getDrawingColor(square));
+        graphics.fillRect(xDraw, yDraw, SQUARE_SIZE, SQUARE_SIZE);
+        if (board.isSquareSelected(square)) {
+            if (square.isOccupied()) {
+                graphics.setColor(Color.PINK);
+                graphics.fillRect(xDraw, yDraw, SQUARE_SIZE, SQUARE_SIZE);
+            } else {
+                //an offset to put the circle in the middle of the square.
+                int circleOffset = (SQUARE_SIZE - SQUARE_SELECT_SIZE) / 2;
+                graphics.setColor(Color.CYAN);
+                graphics.fillOval(xDraw + circleOffset, yDraw + circleOffset,
+                                  SQUARE_SELECT_SIZE, SQUARE_SELECT_SIZE);
+            }
+        }
+    }
+
+    /**
+     * This method draws a piece. The picture is taken from the shared PieceSprites cache. A king that is in check
+     * gets a red circle behind it.
+     * @param piece The piece that will be drawn.
+     * @param graphics The graphics which the piece will be drawn to.
+     */
+    private void drawPiece(Piece piece, Graphics graphics) {
+        Graphics2D g2d = (Graphics2D) graphics;
+        Square square = piece.getSquare();
+        int file = square.getFile() * SQUARE_SIZE;
+        int rank = square.getRank() * SQUARE_SIZE;
+
+        if (piece.getPieceType() == PieceType.KING && piece.isInCheck()) {
+            g2d.setColor(Color.RED);
+            g2d.fillOval(file, rank, SQUARE_SIZE, SQUARE_SIZE);
+        }
+        g2d.drawImage(PieceSprites.getSprite(piece.getPieceType(), piece.getColor(), SQUARE_SIZE), file, rank, null);
+    }
+
+    /**
+     * This method returns the drawing color of a square on the panel.
+     * @param square The square that will be drawn.
+     * @return The drawing color of the square.
+     */
+    private Color getDrawingColor(Square square) {
+        if (square.getColor() == Side.WHITE) {
+            return GUI_COLORS[0];
+        } else {
+            return GUI_COLORS[1];
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package se.liu.chrwa634.gui;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.PackedMove;
+import se.liu.chrwa634.pieces.Side;
+import se.liu.chrwa634.search.Search;
+import se.liu.chrwa634.search.SearchLimits;
+import se.liu.chrwa634.search.SearchResult;
+import se.liu.chrwa634.search.TranspositionTable;
+
+import javax.swing.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class is the computer opponent of the game. It searches for a move with Search on a background thread so that
+ * the window does not freeze while the computer is thinking, and plays the move on the board of the game panel when
+ * the search is done.
+ *
+ * The search is done on a copy of the board, since the game panel draws the board while the computer is thinking. The
+ * copy is made with Board.copyFrom so that it keeps the positions that were played before, and the computer sees the
+ * repetitions of the game. The transposition table is kept between the moves, since most of the positions that were
+ * searched for the last move are searched again for the next one.
+ */
+public class ComputerPlayer
+{
+    private static final long DEFAULT_TIME_MILLIS = 2000L;
+
+    private final Side side;
+    private final SearchLimits limits;
+    private final TranspositionTable transpositionTable;
+    private SwingWorker<SearchResult, Void> worker;
+    private Search search;
+
+    public ComputerPlayer(Side side) {
+	this(side, SearchLimits.time(DEFAULT_TIME_MILLIS));
+    }
+
+    public ComputerPlayer(Side side, SearchLimits limits) {
+	this.side = side;
+	this.limits = limits;
+	transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES);
+	worker = null;
+	search = null;
+    }
+
+    public Side getSide() {
+	return side;
+    }
+
+    /**
+     * This method checks if the computer is searching for a move.
+     * @return True if a search is running.
+     */
+    public boolean isThinking() {
+	return worker != null;
+    }
+
+    /**
+     * This method starts to search for a move if it is the turn of the computer. The move is played on the board of
+     * the game panel when the search is done, unless the position has changed since the search was started.
+     * @param board The board of the game.
+     * @param gamePanel The game panel that the move is played on.
+     */
+    public void play(Board board, GamePanel gamePanel) {
+	Side sideToMove = board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+	if (isThinking() || board.isGameOver() || sideToMove != side) {
+	    return;
+	}
+	long zobristKey = board.getZobristKey();
+	Board searchBoard = new Board();
+	searchBoard.copyFrom(board);
+	Search currentSearch = new Search(searchBoard, transpositionTable);
+	search = currentSearch;
+	worker = new SwingWorker<>()
+	{
+	    @Override protected SearchResult doInBackground() {
+		return currentSearch.search(limits);
+	    }
+
+	    @Override protected void done() {
+		//A cancelled search could finish after the next search has started, so only the running search is removed.
+		if (worker == this) {
+		    worker = null;
+		    search = null;
+		}
+		if (isCancelled()) {
+		    return;
+		}
+		try {
+		    int move = get().getBestMove();
+		    if (move != PackedMove.NO_MOVE) {
+			gamePanel.playComputerMove(move, zobristKey);
+		    }
+		} catch (InterruptedException | ExecutionException e) {
+		    throw new IllegalStateException("The search of the computer failed", e);
+		}
+	    }
+	};
+	worker.execute();
+    }
+
+    /**
+     * This method stops the search of the computer without playing its move, for example when a new game is started.
+     * The transposition table is kept, since a search that is cancelled could still be writing to it.
+     */
+    public void cancel() {
+	if (search != null) {
+	    search.stop();
+	}
+	if (worker != null) {
+	    worker.cancel(false);
+	    worker = null;
+	}
+	search = null;
+    }
+}
@@ -1,5 +1,7 @@
 package se.liu.chrwa634.gui;
 
+import se.liu.chrwa634.pieces.Side;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -19,7 +21,19 @@ public class GameFrame
     }
 
     public GameFrame(String startPosition){
-        gamePanel = new GamePanel(startPosition, this);
+        this(startPosition, null);
+    }
+
+    /**
+     * This is the constructor for a game against the computer.
+     * @param startPosition The start position of the board.
+     * @param computerSide The side that the computer plays, or null if both sides are played by the user.
+     */
+    public GameFrame(String startPosition, Side computerSide){
+        // The piece pictures are read on a background thread while the frame is being built.
+        PieceSprites.preload();
+        ComputerPlayer computerPlayer = computerSide == null ? null : new ComputerPlayer(computerSide);
+        gamePanel = new GamePanel(startPosition, this, computerPlayer);
         frame.add(gamePanel);
         frame.setTitle("Chess");
         frame.setResizable(false);
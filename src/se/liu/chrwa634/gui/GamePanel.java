@@ -3,7 +3,8 @@ package se.liu.chrwa634.gui;
 import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.GameOverType;
 import se.liu.chrwa634.main.Position;
-import se.liu.chrwa634.main.Square;
+import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.Side;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,6 +21,8 @@ public class GamePanel extends JPanel
 
     private Board board;
     private GameFrame gameFrame;
+    private BoardRenderer boardRenderer;
+    private ComputerPlayer computerPlayer;
 
     /**
      * This is the constructor that initiates the board according to the given fen position. It also adds
@@ -27,26 +30,72 @@ public class GamePanel extends JPanel
      * @param startPosition The start position of the board.
      */
     public GamePanel(String startPosition, GameFrame gameFrame) {
+        this(startPosition, gameFrame, null);
+    }
+
+    /**
+     * This is the constructor for a game against the computer. The clicks of the user are ignored while the computer
+     * is thinking, and the computer starts to think as soon as it is its turn.
+     * @param startPosition The start position of the board.
+     * @param computerPlayer The computer opponent, or null if both sides are played by the user.
+     */
+    public GamePanel(String startPosition, GameFrame gameFrame, ComputerPlayer computerPlayer) {
         this.setFocusable(true);
         this.setPreferredSize(SCREEN_SIZE);
         this.gameFrame = gameFrame;
         board = new Board();
         board.loadPosition(new Position(startPosition));
+        board.setPromotionChooser(this::choosePromotion);
+        boardRenderer = new BoardRenderer();
+        this.computerPlayer = computerPlayer;
         addMouseListener(new MouseAdapter()
         {
             @Override public void mouseClicked(final MouseEvent e) {
-                if (!isPaused()) {
-                    int squareSize = Square.getSquareSize();
+                if (!isPaused() && !isComputerThinking()) {
+                    int squareSize = BoardRenderer.getSquareSize();
                     int file = e.getX()/squareSize;
                     int rank = e.getY()/squareSize;
                     board.select(rank, file);
                     updateBoard();
                     if (board.isGameOver()) {
                         gameFrame.openGameOverGUI();
+                    } else {
+                        startComputer();
                     }
                 }
             }
         });
+        startComputer();
+    }
+
+    /**
+     * This method plays the move that the computer has found. The move is only played if the position is still the
+     * one that the computer searched, since the game could have been restarted while it was thinking.
+     * @param move The move encoded with PackedMove.
+     * @param zobristKey The Zobrist key of the position that the computer searched.
+     */
+    public void playComputerMove(int move, long zobristKey) {
+        if (isPaused() || board.getZobristKey() != zobristKey) {
+            return;
+        }
+        board.playMove(move);
+        updateBoard();
+        if (board.isGameOver()) {
+            gameFrame.openGameOverGUI();
+        }
+    }
+
+    /**
+     * This method lets the computer search for a move if there is a computer opponent and it is its turn.
+     */
+    private void startComputer() {
+        if (computerPlayer != null) {
+            computerPlayer.play(board, this);
+        }
+    }
+
+    private boolean isComputerThinking() {
+        return computerPlayer != null && computerPlayer.isThinking();
     }
 
     /**
@@ -60,7 +109,11 @@ public class GamePanel extends JPanel
      * This function will set the board to the start position of a normal chess game.
      */
     public void resetBoard() {
+       if (computerPlayer != null) {
+           computerPlayer.cancel();
+       }
        board.resetBoard();
+       startComputer();
     }
 
     /**
@@ -75,11 +128,28 @@ public class GamePanel extends JPanel
     }
 
     /**
-     * This method calls the board draw method.
+     * This method draws the board with the board renderer.
      * @param graphics the graphics where it will be drawn.
      */
     public void draw(Graphics graphics) {
-        board.draw(graphics);
+        boardRenderer.draw(board, graphics);
+    }
+
+    /**
+     * This method ask the user to choose want they want to promote their pawn to.
+     * @param side The side of the pawn that promotes.
+     * @return The piece type that the pawn promotes to.
+     */
+    private PieceType choosePromotion(Side side) {
+        Object[] pieces = {"Queen", "Rook", "Bishop", "Knight"};
+        int i = JOptionPane.showOptionDialog(
+                this, "What do you want to promote to?", "Promotion",
+                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE, null, pieces,
+                "Queen");
+
+        PieceType[] pieceTypes = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+        //If the dialog is closed without a choice the pawn promotes to a queen.
+        return i < 0 ? PieceType.QUEEN : pieceTypes[i];
     }
 
     public boolean isWhiteTurn() {
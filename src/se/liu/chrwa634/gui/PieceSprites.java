@@ -0,0 +1,118 @@
+package se.liu.chrwa634.gui;
+
+import se.liu.chrwa634.main.BitboardPosition;
+import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.Side;
+
+import javax.swing.*;
+import java.awt.*;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class holds the pictures of the pieces. There is one picture for every piece type and color so the cache has
+ * twelve entries that are shared by all the pieces in the process. The pictures are loaded once on a background thread
+ * when the GUI starts, which means that creating a piece never reads an image and a board that is never drawn never
+ * touches image I/O at all. The pictures are indexed with the piece index of BitboardPosition.
+ */
+public final class PieceSprites
+{
+    private static final int SPRITE_AMOUNT = 12;
+    private static final Map<PieceType, String> IMAGE_MAP = createImageMap();
+
+    private static CompletableFuture<Image[]> sprites = null;
+    private static Image[] scaledSprites = null;
+    private static int scaledSize = 0;
+
+    private PieceSprites() {}
+
+    /**
+     * This method starts loading the pictures of the pieces on a background thread. It should be called when the GUI
+     * starts so that the pictures are ready before the board is drawn for the first time. Calling it more than once
+     * does not load the pictures again.
+     */
+    public static synchronized void preload() {
+        if (sprites == null) {
+            sprites = CompletableFuture.supplyAsync(PieceSprites::loadSprites);
+        }
+    }
+
+    /**
+     * This method returns the picture of a piece scaled to the size of a square. The scaled pictures are cached so they
+     * are only scaled again if the size of the squares changes. If the pictures are still being loaded the method waits
+     * for them.
+     * @param pieceType The type of the piece.
+     * @param color The color of the piece.
+     * @param size The width and height of the picture.
+     * @return The picture of the piece.
+     */
+    public static synchronized Image getSprite(PieceType pieceType, Side color, int size) {
+        if (scaledSprites == null || scaledSize != size) {
+            preload();
+            scaledSprites = scaleSprites(sprites.join(), size);
+            scaledSize = size;
+        }
+        int colorIndex = BitboardPosition.getColorIndex(color);
+        return scaledSprites[BitboardPosition.getPieceIndex(pieceType, colorIndex)];
+    }
+
+    /**
+     * This method reads the pictures of all the pieces.
+     * @return An array with the picture of every piece index.
+     */
+    private static Image[] loadSprites() {
+        Image[] loadedSprites = new Image[SPRITE_AMOUNT];
+        for (PieceType pieceType : PieceType.values()) {
+            for (int colorIndex = BitboardPosition.WHITE; colorIndex <= BitboardPosition.BLACK; colorIndex++) {
+                URL imageUrl = getImageURL(pieceType, colorIndex);
+                loadedSprites[BitboardPosition.getPieceIndex(pieceType, colorIndex)] = new ImageIcon(imageUrl).getImage();
+            }
+        }
+        return loadedSprites;
+    }
+
+    /**
+     * This method scales all the pictures to the given size. ImageIcon waits until the scaled picture is done so the
+     * pictures could be drawn directly.
+     * @param loadedSprites The pictures in their original size.
+     * @param size The width and height of the scaled pictures.
+     * @return An array with the scaled pictures.
+     */
+    private static Image[] scaleSprites(Image[] loadedSprites, int size) {
+        Image[] scaled = new Image[SPRITE_AMOUNT];
+        for (int pieceIndex = 0; pieceIndex < SPRITE_AMOUNT; pieceIndex++) {
+            Image scaledImage = loadedSprites[pieceIndex].getScaledInstance(size, size, Image.SCALE_SMOOTH);
+            scaled[pieceIndex] = new ImageIcon(scaledImage).getImage();
+        }
+        return scaled;
+    }
+
+    /**
+     * This is a help method to create a url for the picture of the piece.
+     * @param pieceType The type of the piece.
+     * @param colorIndex The color index of the piece.
+     * @return An image url for the piece picture.
+     */
+    private static URL getImageURL(PieceType pieceType, int colorIndex) {
+        String colorPath = colorIndex == BitboardPosition.WHITE ? "w" : "b";
+        String imagePath = "images/" + colorPath + IMAGE_MAP.get(pieceType);
+        return ClassLoader.getSystemResource(imagePath);
+    }
+
+    /**
+     * This method helps to construct the constant IMAGE_MAP.
+     * @return An enummap for the IMAGE_MAP constant map.
+     */
+    private static Map<PieceType, String> createImageMap() {
+        Map<PieceType, String> imageMap = new EnumMap<>(PieceType.class);
+        imageMap.put(PieceType.PAWN, "_pawn.png");
+        imageMap.put(PieceType.BISHOP, "_bishop.png");
+        imageMap.put(PieceType.KING, "_king.png");
+        imageMap.put(PieceType.QUEEN, "_queen.png");
+        imageMap.put(PieceType.ROOK, "_rook.png");
+        imageMap.put(PieceType.KNIGHT, "_knight.png");
+        return imageMap;
+    }
+}
@@ -0,0 +1,293 @@
+package se.liu.chrwa634.main;
+
+/**
+ * This class holds precomputed attack tables for the bitboards in BitboardPosition. The knight, king and pawn attacks
+ * of every square is computed once when the class is loaded. The class also holds a table with the squares between
+ * two squares that are on the same line which is used for checks and pins.
+ *
+ * The sliding pieces, bishops, rooks and queens, get their attacks from magic bitboard tables. For every square only
+ * the squares that could block the piece matters, these are saved in a mask. The occupancy of the mask is multiplied
+ * with a magic number and shifted so that every possible occupancy gets its own index in the attack table of the
+ * square. The magic numbers were found with a seeded random search and are saved as constants so that only the attack
+ * tables have to be filled when the class is loaded. You can read more about magic bitboards here:
+ * https://www.chessprogramming.org/Magic_Bitboards
+ *
+ * The tables are never changed after the class has been loaded so they could be shared between any number of boards
+ * and threads.
+ */
+public final class AttackTables
+{
+    private static final int SQUARE_AMOUNT = 64;
+    private static final int[][] KNIGHT_OFFSETS = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+    private static final int[][] KING_OFFSETS = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+    private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+    private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+
+    private static final long[] KNIGHT_ATTACKS = new long[SQUARE_AMOUNT];
+    private static final long[] KING_ATTACKS = new long[SQUARE_AMOUNT];
+    private static final long[][] PAWN_ATTACKS = new long[2][SQUARE_AMOUNT];
+    private static final long[][] BETWEEN = new long[SQUARE_AMOUNT][SQUARE_AMOUNT];
+
+    private static final long[] BISHOP_MAGICS = {
+	0x0020428400408200L, 0x0004100440408000L, 0x82041C2482010010L, 0x0484142D80000000L,
+	0x0002021008101042L, 0x4200882008014100L, 0x0004A81108200000L, 0x0001004802011100L,
+	0x1040401024010048L, 0x0042041004204881L, 0x2008110810810020L, 0x240008060440C288L,
+	0x0021020210050020L, 0x0022810402408800L, 0x802060410420A042L, 0x0081020086481280L,
+	0x4110400860C10400L, 0x20040021240C0240L, 0x4802044104040080L, 0x00008868020042C0L,
+	0x0002204400A00002L, 0x2820408488084000L, 0x08006024041C0420L, 0x4102088190808810L,
+	0x0102201040094200L, 0xAB0A0814203800A0L, 0x4044209010008080L, 0x2020120000400440L,
+	0x4400840034802011L, 0x425051000600A200L, 0x412094012A010410L, 0x08084080A04C0440L,
+	0x0304022241C10401L, 0x0200841000210200L, 0x0602004100100100L, 0x0C04020081080080L,
+	0x00A0040400004102L, 0x30348102000100A2L, 0x10041401700C0500L, 0x8000840282424212L,
+	0x0810822110002000L, 0x00204814500084A4L, 0x0002022228009410L, 0x200000420080A810L,
+	0x0000200411108400L, 0x8240100400400020L, 0x01A4108404442100L, 0x0A020A0201A20209L,
+	0x00010C0920881A42L, 0x022104022202A400L, 0x80000022011008A0L, 0x5000441020884001L,
+	0x1001001202020008L, 0x4808202102308024L, 0x4008023004051104L, 0x44040802004E0800L,
+	0x000040A210066040L, 0x000002060A01050DL, 0x52A0040106431002L, 0x0000040200841C08L,
+	0xF000010828030409L, 0x0041201120190500L, 0x0404082081122212L, 0x000408009C008200L
+    };
+    private static final long[] ROOK_MAGICS = {
+	0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+	0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+	0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8F80801000800801L,
+	0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+	0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+	0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+	0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0001002100081000L,
+	0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+	0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+	0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+	0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+	0x0008000500090010L, 0x0082009084020008L, 0x01818902102C0008L, 0x8308408041020004L,
+	0x0200860C20410200L, 0x6020200090400080L, 0x0800900020008280L, 0x0000100020090100L,
+	0x0400800400080280L, 0x0050044010200801L, 0x0101004406000B00L, 0xC100066400870200L,
+	0x440680014012A501L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+	0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MASKS = new long[SQUARE_AMOUNT];
+    private static final int[] BISHOP_SHIFTS = new int[SQUARE_AMOUNT];
+    private static final long[][] BISHOP_TABLE = new long[SQUARE_AMOUNT][];
+    private static final long[] ROOK_MASKS = new long[SQUARE_AMOUNT];
+    private static final int[] ROOK_SHIFTS = new int[SQUARE_AMOUNT];
+    private static final long[][] ROOK_TABLE = new long[SQUARE_AMOUNT][];
+
+    static {
+	for (int square = 0; square < SQUARE_AMOUNT; square++) {
+	    KNIGHT_ATTACKS[square] = getStepAttacks(square, KNIGHT_OFFSETS);
+	    KING_ATTACKS[square] = getStepAttacks(square, KING_OFFSETS);
+	    //A white pawn attacks towards the eighth rank which has the rank index 0.
+	    PAWN_ATTACKS[BitboardPosition.WHITE][square] = getStepAttacks(square, new int[][] { { -1, -1 }, { 1, -1 } });
+	    PAWN_ATTACKS[BitboardPosition.BLACK][square] = getStepAttacks(square, new int[][] { { -1, 1 }, { 1, 1 } });
+	}
+	initBetweenTable();
+	for (int square = 0; square < SQUARE_AMOUNT; square++) {
+	    initMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLE);
+	    initMagic(square, ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLE);
+	}
+    }
+
+    private AttackTables() {}
+
+    /**
+     * This method returns the squares a knight attacks from a square.
+     * @param square The index of the square.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getKnightAttacks(int square) {
+	return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * This method returns the squares a king attacks from a square.
+     * @param square The index of the square.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getKingAttacks(int square) {
+	return KING_ATTACKS[square];
+    }
+
+    /**
+     * This method returns the squares a pawn of a color attacks from a square.
+     * @param colorIndex The color of the pawn.
+     * @param square The index of the square.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getPawnAttacks(int colorIndex, int square) {
+	return PAWN_ATTACKS[colorIndex][square];
+    }
+
+    /**
+     * This method returns the squares a bishop attacks from a square. The attacks stops at the first occupied square
+     * in every direction and that square is included.
+     * @param square The index of the square.
+     * @param occupancy The occupied squares of the board.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getBishopAttacks(int square, long occupancy) {
+	int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+	return BISHOP_TABLE[square][index];
+    }
+
+    /**
+     * This method returns the squares a rook attacks from a square. The attacks stops at the first occupied square
+     * in every direction and that square is included.
+     * @param square The index of the square.
+     * @param occupancy The occupied squares of the board.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getRookAttacks(int square, long occupancy) {
+	int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+	return ROOK_TABLE[square][index];
+    }
+
+    /**
+     * This method returns the squares a queen attacks from a square.
+     * @param square The index of the square.
+     * @param occupancy The occupied squares of the board.
+     * @return A bitboard of the attacked squares.
+     */
+    public static long getQueenAttacks(int square, long occupancy) {
+	return getBishopAttacks(square, occupancy) | getRookAttacks(square, occupancy);
+    }
+
+    /**
+     * This method returns the squares between two squares. If the squares are not on the same rank, file or diagonal
+     * than the bitboard is empty.
+     * @param from The index of the first square.
+     * @param to The index of the second square.
+     * @return A bitboard of the squares between, not including the two given squares.
+     */
+    public static long getBetween(int from, int to) {
+	return BETWEEN[from][to];
+    }
+
+    /**
+     * This method computes the attacks of a piece that jumps a given set of offsets from a square.
+     * @param square The index of the square.
+     * @param offsets The file and rank offsets of the jumps.
+     * @return A bitboard of the attacked squares.
+     */
+    private static long getStepAttacks(int square, int[][] offsets) {
+	int file = BitboardPosition.getFile(square);
+	int rank = BitboardPosition.getRank(square);
+	long attacks = 0L;
+	for (int[] offset : offsets) {
+	    int checkFile = file + offset[0];
+	    int checkRank = rank + offset[1];
+	    if (isInside(checkFile, checkRank)) {
+		attacks |= 1L << BitboardPosition.getSquareIndex(checkFile, checkRank);
+	    }
+	}
+	return attacks;
+    }
+
+    /**
+     * This method computes the attacks of a sliding piece by walking every direction until it gets outside the board or
+     * to an occupied square. It is only used to fill the magic tables.
+     * @param square The index of the square.
+     * @param occupancy The occupied squares of the board.
+     * @param directions The file and rank directions that the piece slides in.
+     * @return A bitboard of the attacked squares.
+     */
+    private static long getSlidingAttacks(int square, long occupancy, int[][] directions) {
+	int file = BitboardPosition.getFile(square);
+	int rank = BitboardPosition.getRank(square);
+	long attacks = 0L;
+	for (int[] direction : directions) {
+	    int checkFile = file + direction[0];
+	    int checkRank = rank + direction[1];
+	    while (isInside(checkFile, checkRank)) {
+		long squareBit = 1L << BitboardPosition.getSquareIndex(checkFile, checkRank);
+		attacks |= squareBit;
+		if ((occupancy & squareBit) != 0) {
+		    break;
+		}
+		checkFile += direction[0];
+		checkRank += direction[1];
+	    }
+	}
+	return attacks;
+    }
+
+    /**
+     * This method computes the mask of the squares that could block a sliding piece. The last square of every
+     * direction is not included because a piece on it does not change the attacks.
+     * @param square The index of the square.
+     * @param directions The file and rank directions that the piece slides in.
+     * @return A bitboard of the squares that could block the piece.
+     */
+    private static long getBlockerMask(int square, int[][] directions) {
+	int file = BitboardPosition.getFile(square);
+	int rank = BitboardPosition.getRank(square);
+	long mask = 0L;
+	for (int[] direction : directions) {
+	    int checkFile = file + direction[0];
+	    int checkRank = rank + direction[1];
+	    while (isInside(checkFile + direction[0], checkRank + direction[1])) {
+		mask |= 1L << BitboardPosition.getSquareIndex(checkFile, checkRank);
+		checkFile += direction[0];
+		checkRank += direction[1];
+	    }
+	}
+	return mask;
+    }
+
+    /**
+     * This method fills the attack table of a square for a sliding piece. Every subset of the blocker mask is
+     * enumerated and its attacks are saved at the index given by the magic number of the square.
+     * @param square The index of the square.
+     * @param directions The file and rank directions that the piece slides in.
+     * @param magics The magic numbers of the piece.
+     * @param masks The blocker masks of the piece.
+     * @param shifts The shifts of the piece.
+     * @param table The attack tables of the piece.
+     */
+    private static void initMagic(int square, int[][] directions, long[] magics, long[] masks, int[] shifts, long[][] table) {
+	long mask = getBlockerMask(square, directions);
+	int indexBits = Long.bitCount(mask);
+	long[] attackTable = new long[1 << indexBits];
+
+	// Enumerate all the subsets of the mask with the carry-rippler trick.
+	long subset = 0L;
+	do {
+	    int index = (int) ((subset * magics[square]) >>> (Long.SIZE - indexBits));
+	    attackTable[index] = getSlidingAttacks(square, subset, directions);
+	    subset = (subset - mask) & mask;
+	} while (subset != 0);
+
+	masks[square] = mask;
+	shifts[square] = Long.SIZE - indexBits;
+	table[square] = attackTable;
+    }
+
+    /**
+     * This method fills the BETWEEN table by walking from every square in all of the eight directions.
+     */
+    private static void initBetweenTable() {
+	for (int from = 0; from < SQUARE_AMOUNT; from++) {
+	    for (int[] direction : KING_OFFSETS) {
+		long between = 0L;
+		int checkFile = BitboardPosition.getFile(from) + direction[0];
+		int checkRank = BitboardPosition.getRank(from) + direction[1];
+		while (isInside(checkFile, checkRank)) {
+		    int to = BitboardPosition.getSquareIndex(checkFile, checkRank);
+		    BETWEEN[from][to] = between;
+		    between |= 1L << to;
+		    checkFile += direction[0];
+		    checkRank += direction[1];
+		}
+	    }
+	}
+    }
+
+    /**
+     * This method checks if a coordinate is inside the board.
+     * @param file The file of the coordinate.
+     * @param rank The rank of the coordinate.
+     * @return True if the coordinate is inside the board.
+     */
+    private static boolean isInside(int file, int rank) {
+	int boardSize = Board.getBoardSize();
+	return file >= 0 && file < boardSize && rank >= 0 && rank < boardSize;
+    }
+}
@@ -0,0 +1,197 @@
+package se.liu.chrwa634.main;
+
+import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.Side;
+
+/**
+ * This class represents the pieces on the board as bitboards. A bitboard is a long where every bit is a square on the
+ * board. There is one bitboard for every piece type of each color, twelve in total, and one occupancy bitboard for
+ * each color together with one for all the pieces.
+ *
+ * The bit of a square is given by rank * 8 + file where rank and file are the same indexes that the Square class
+ * uses. This means that a8 is bit 0 and h1 is bit 63 so a move towards the eighth rank subtracts 8 from the index.
+ * The class also keeps a mailbox that maps every square to the piece index that is occupying it. The board keeps this
+ * position in sync with its squares so that the rules could be computed with bit operations.
+ */
+public class BitboardPosition
+{
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+    public static final int NO_PIECE = -1;
+
+    private static final int SQUARE_AMOUNT = 64;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int PIECE_TYPE_AMOUNT = PIECE_TYPES.length;
+
+    private final long[] pieceBitboards = new long[2 * PIECE_TYPE_AMOUNT];
+    private final long[] colorBitboards = new long[2];
+    private long occupied = 0L;
+    private final int[] mailbox = new int[SQUARE_AMOUNT];
+
+    public BitboardPosition() {
+	clear();
+    }
+
+    /**
+     * This method returns the bit index of a square.
+     * @param file The file of the square.
+     * @param rank The rank of the square.
+     * @return The index of the square in a bitboard.
+     */
+    public static int getSquareIndex(int file, int rank) {
+	return rank * Board.getBoardSize() + file;
+    }
+
+    /**
+     * This method returns the file of a square index.
+     * @param squareIndex The index of the square.
+     * @return The file of the square.
+     */
+    public static int getFile(int squareIndex) {
+	return squareIndex & 7;
+    }
+
+    /**
+     * This method returns the rank of a square index.
+     * @param squareIndex The index of the square.
+     * @return The rank of the square.
+     */
+    public static int getRank(int squareIndex) {
+	return squareIndex >>> 3;
+    }
+
+    /**
+     * This method returns the index of a piece. The white pieces have the indexes 0 to 5 and the black pieces
+     * 6 to 11 in the order of the PieceType enum.
+     * @param pieceType The type of the piece.
+     * @param colorIndex WHITE or BLACK.
+     * @return The index of the piece.
+     */
+    public static int getPieceIndex(PieceType pieceType, int colorIndex) {
+	return colorIndex * PIECE_TYPE_AMOUNT + pieceType.ordinal();
+    }
+
+    /**
+     * This method returns the color index of a color.
+     * @param color The color of a piece.
+     * @return WHITE or BLACK.
+     */
+    public static int getColorIndex(Side color) {
+	return color == Side.WHITE ? WHITE : BLACK;
+    }
+
+    /**
+     * This method returns the color index of a piece index.
+     * @param pieceIndex The index of the piece.
+     * @return WHITE or BLACK.
+     */
+    public static int getColorIndex(int pieceIndex) {
+	return pieceIndex < PIECE_TYPE_AMOUNT ? WHITE : BLACK;
+    }
+
+    /**
+     * This method returns the piece type of a piece index.
+     * @param pieceIndex The index of the piece.
+     * @return The type of the piece.
+     */
+    public static PieceType getPieceType(int pieceIndex) {
+	return PIECE_TYPES[pieceIndex % PIECE_TYPE_AMOUNT];
+    }
+
+    /**
+     * This method adds a piece to a square.
+     * @param pieceIndex The index of the piece.
+     * @param squareIndex The index of the square.
+     */
+    public void addPiece(int pieceIndex, int squareIndex) {
+	long squareBit = 1L << squareIndex;
+	pieceBitboards[pieceIndex] |= squareBit;
+	colorBitboards[getColorIndex(pieceIndex)] |= squareBit;
+	occupied |= squareBit;
+	mailbox[squareIndex] = pieceIndex;
+    }
+
+    /**
+     * This method removes the piece that is on a square. If the square is empty than nothing happens.
+     * @param squareIndex The index of the square.
+     */
+    public void removePiece(int squareIndex) {
+	int pieceIndex = mailbox[squareIndex];
+	if (pieceIndex != NO_PIECE) {
+	    long squareBit = 1L << squareIndex;
+	    pieceBitboards[pieceIndex] &= ~squareBit;
+	    colorBitboards[getColorIndex(pieceIndex)] &= ~squareBit;
+	    occupied &= ~squareBit;
+	    mailbox[squareIndex] = NO_PIECE;
+	}
+    }
+
+    /**
+     * This method removes all of the pieces.
+     */
+    public void clear() {
+	for (int pieceIndex = 0; pieceIndex < pieceBitboards.length; pieceIndex++) {
+	    pieceBitboards[pieceIndex] = 0L;
+	}
+	colorBitboards[WHITE] = 0L;
+	colorBitboards[BLACK] = 0L;
+	occupied = 0L;
+	for (int squareIndex = 0; squareIndex < SQUARE_AMOUNT; squareIndex++) {
+	    mailbox[squareIndex] = NO_PIECE;
+	}
+    }
+
+    /**
+     * This method returns the piece index that is on a square.
+     * @param squareIndex The index of the square.
+     * @return The index of the piece or NO_PIECE if the square is empty.
+     */
+    public int getPieceAt(int squareIndex) {
+	return mailbox[squareIndex];
+    }
+
+    /**
+     * This method returns the bitboard of a piece index.
+     * @param pieceIndex The index of the piece.
+     * @return The bitboard of the piece.
+     */
+    public long getPieces(int pieceIndex) {
+	return pieceBitboards[pieceIndex];
+    }
+
+    /**
+     * This method returns the bitboard of a piece type with a color.
+     * @param pieceType The type of the piece.
+     * @param colorIndex WHITE or BLACK.
+     * @return The bitboard of the pieces.
+     */
+    public long getPieces(PieceType pieceType, int colorIndex) {
+	return pieceBitboards[getPieceIndex(pieceType, colorIndex)];
+    }
+
+    /**
+     * This method returns all of the squares that are occupied by a color.
+     * @param colorIndex WHITE or BLACK.
+     * @return The occupancy bitboard of the color.
+     */
+    public long getOccupancy(int colorIndex) {
+	return colorBitboards[colorIndex];
+    }
+
+    /**
+     * This method returns all of the squares that are occupied.
+     * @return The occupancy bitboard of the board.
+     */
+    public long getOccupancy() {
+	return occupied;
+    }
+
+    /**
+     * This method checks if a square is occupied.
+     * @param squareIndex The index of the square.
+     * @return True if the square is occupied.
+     */
+    public boolean isOccupied(int squareIndex) {
+	return (occupied & (1L << squareIndex)) != 0;
+    }
+}
@@ -2,12 +2,15 @@ package se.liu.chrwa634.main;
 
 import se.liu.chrwa634.pieces.File;
 import se.liu.chrwa634.pieces.Piece;
+import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.PromotionChooser;
 import se.liu.chrwa634.pieces.Rank;
+import se.liu.chrwa634.pieces.Side;
 
-import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * This is the class that represent the chess board. It holds all the different squares. It also has the objective to be the link
@@ -16,6 +19,7 @@ import java.util.Map;
 public class Board
 {
     private static final int BOARD_SIZE = 8;
+    private static final int UNDO_STACK_CAPACITY = 64;
 
     private Square[][] boardSquares;
     private BoardCounter boardCounter;
@@ -24,6 +28,14 @@ public class Board
     private FenConverter fenConverter;
     private GameOverType gameOverType;
     private List<List<Piece>> pieces;
+    private BoardState[] undoStack;
+    private int undoSize;
+    private BitboardPosition bitboards;
+    private Material material;
+    private MoveGenerator moveGenerator;
+    private PromotionChooser promotionChooser;
+    private long zobristKey;
+    private long enPassantKey;
 
     /**
      * This is the contrustor. It creates an array of empty squares. Afterwards using
@@ -38,12 +50,20 @@ public class Board
         pieces = new ArrayList<>();
         pieces.add(new ArrayList<>());
         pieces.add(new ArrayList<>());
+        undoStack = new BoardState[UNDO_STACK_CAPACITY];
+        undoSize = 0;
+        bitboards = new BitboardPosition();
+        material = new Material();
+        moveGenerator = new MoveGenerator(this);
         gameOverType = GameOverType.NULL;
+        zobristKey = 0L;
+        enPassantKey = 0L;
+        promotionChooser = side -> PieceType.QUEEN;
 
         for (int rank = 0; rank < BOARD_SIZE; rank++) {
             for (int file = 0; file < BOARD_SIZE; file ++) {
                 boolean isBlackSquare = (rank + file) % 2 != 0;
-                Color color = isBlackSquare ? Color.BLACK : Color.WHITE;
+                Side color = isBlackSquare ? Side.BLACK : Side.WHITE;
                 boardSquares[rank][file] = new Square(file, rank, color, this);
             }
         }
@@ -71,6 +91,24 @@ public class Board
         loadPosition(position);
     }
 
+    /**
+     * This method sets the chooser that is asked which piece a pawn should promote to when a move is played with
+     * movePiece. Without a chooser the pawns promote to a queen.
+     * @param promotionChooser The chooser that will be asked.
+     */
+    public void setPromotionChooser(PromotionChooser promotionChooser) {
+        this.promotionChooser = promotionChooser;
+    }
+
+    /**
+     * This method asks the promotion chooser which piece a pawn should promote to.
+     * @param side The side of the pawn.
+     * @return The piece type that the pawn promotes to.
+     */
+    public PieceType choosePromotion(Side side) {
+        return promotionChooser.choosePromotion(side);
+    }
+
     /**
      * This method retrieves the gameOvertype
      * @return the gameOverType
@@ -113,6 +151,9 @@ public class Board
      * @param value The value that isWhiteTurn is going to be.
      */
     public void setIsWhiteTurn(boolean value) {
+        if (value != getIsWhiteTurn()) {
+            zobristKey ^= Zobrist.getBlackToMoveKey();
+        }
         detector.setIsWhiteTurn(value);
     }
 
@@ -140,6 +181,7 @@ public class Board
      */
     public void setEnPassantSquare(Square enPassantSquare) {
         detector.setEnPassantSquare(enPassantSquare);
+        updateEnPassantKey();
     }
 
     public boolean doesEnPassantSquareExist() {
@@ -158,6 +200,68 @@ public class Board
      */
     public void resetEnPassantSquare() {
         detector.resetEnPassantSquare();
+        updateEnPassantKey();
+    }
+
+    /**
+     * This method returns the Zobrist key of the position. The key is updated every time a piece is put on or
+     * removed from a square, the turn switches or the castling rights or en passant square change, so it is always
+     * the key of the current position. Two positions with the same pieces, side to move, castling rights and en passant
+     * captures get the same key.
+     * @return The 64-bit Zobrist key of the position.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * This method computes the Zobrist key of the position from the beginning instead of updating it. It is used after
+     * a position is loaded since the pieces and rights are then set in an order where the en passant part could not be
+     * known yet.
+     * @return The 64-bit Zobrist key of the position.
+     */
+    private long computeZobristKey() {
+        long key = 0L;
+        long occupied = bitboards.getOccupancy();
+        while (occupied != 0) {
+            int squareIndex = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            key ^= Zobrist.getPieceKey(bitboards.getPieceAt(squareIndex), squareIndex);
+        }
+        if (!getIsWhiteTurn()) {
+            key ^= Zobrist.getBlackToMoveKey();
+        }
+        key ^= Zobrist.getCastlingKey(detector.getCastlingRights());
+        return key ^ getEnPassantSquareKey();
+    }
+
+    /**
+     * This method replaces the en passant part of the Zobrist key with the part of the current en passant square.
+     */
+    private void updateEnPassantKey() {
+        zobristKey ^= enPassantKey;
+        enPassantKey = getEnPassantSquareKey();
+        zobristKey ^= enPassantKey;
+    }
+
+    /**
+     * This method returns the en passant part of the Zobrist key. The en passant file is only a part of the key if a
+     * pawn could capture en passant, otherwise the position is the same as if there was no en passant square.
+     * @return The Zobrist number of the en passant file or zero.
+     */
+    private long getEnPassantSquareKey() {
+        Square enPassantSquare = getEnPassantSquare();
+        if (enPassantSquare == null) {
+            return 0L;
+        }
+        int squareIndex = BitboardPosition.getSquareIndex(enPassantSquare.getFile(), enPassantSquare.getRank());
+        //A pawn that has moved two squares up the board can be captured by black and the other way around.
+        int capturingColorIndex = enPassantSquare.getRank() == Rank.THREE.getIndex() ? BitboardPosition.BLACK : BitboardPosition.WHITE;
+        long capturingPawns = bitboards.getPieces(PieceType.PAWN, capturingColorIndex);
+        if ((AttackTables.getPawnAttacks(capturingColorIndex ^ 1, squareIndex) & capturingPawns) == 0) {
+            return 0L;
+        }
+        return Zobrist.getEnPassantKey(enPassantSquare.getFile());
     }
 
     /**
@@ -170,7 +274,7 @@ public class Board
         if (square.isOccupied()) {
             removePiece(square);
         }
-        square.placePiece(piece);
+        putOnSquare(piece, square);
     }
 
     /**
@@ -179,7 +283,7 @@ public class Board
      * @param square The square that the piece is going to be placed.
      */
     public void putNewPiece(Piece piece, Square square) {
-        Color pieceColor = piece.getColor();
+        Side pieceColor = piece.getColor();
         List<Piece> playerPieces = getPlayerPieces(pieceColor);
         playerPieces.add(piece);
         placePiece(piece, square);
@@ -192,7 +296,7 @@ public class Board
      * @param square The square which has the piece that is going to be lifted of the square.
      */
     public void liftPiece(Square square) {
-        square.removePiece();
+        clearSquare(square);
     }
 
     /**
@@ -202,14 +306,62 @@ public class Board
      */
     public void removePiece(Square square) {
         Piece piece = square.getPiece();
-        Color pieceColor = piece.getColor();
+        Side pieceColor = piece.getColor();
         List<Piece> playerPieces = getPlayerPieces(pieceColor);
         playerPieces.remove(piece);
-        square.removePiece();
+        clearSquare(square);
         //All the previous positions cannot happen again so reset.
         resetPositionCounter();
     }
 
+    /**
+     * This method puts a piece on a square and adds it to the bitboards. Every piece that is put on the board goes
+     * through this method so that the bitboards are always in sync with the squares.
+     * @param piece The piece that will be put on the square.
+     * @param square The empty square that the piece will be put on.
+     */
+    private void putOnSquare(Piece piece, Square square) {
+        square.placePiece(piece);
+        int colorIndex = BitboardPosition.getColorIndex(piece.getColor());
+        int pieceIndex = BitboardPosition.getPieceIndex(piece.getPieceType(), colorIndex);
+        int squareIndex = BitboardPosition.getSquareIndex(square.getFile(), square.getRank());
+        bitboards.addPiece(pieceIndex, squareIndex);
+        material.addPiece(pieceIndex, squareIndex);
+        zobristKey ^= Zobrist.getPieceKey(pieceIndex, squareIndex);
+    }
+
+    /**
+     * This method removes the piece of a square and from the bitboards. Every piece that is removed from a square
+     * goes through this method so that the bitboards are always in sync with the squares.
+     * @param square The square that will be cleared.
+     */
+    private void clearSquare(Square square) {
+        square.removePiece();
+        int squareIndex = BitboardPosition.getSquareIndex(square.getFile(), square.getRank());
+        int pieceIndex = bitboards.getPieceAt(squareIndex);
+        if (pieceIndex != BitboardPosition.NO_PIECE) {
+            material.removePiece(pieceIndex, squareIndex);
+            zobristKey ^= Zobrist.getPieceKey(pieceIndex, squareIndex);
+        }
+        bitboards.removePiece(squareIndex);
+    }
+
+    /**
+     * This method returns the piece counts and the material key of the board.
+     * @return The material of the board.
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * This method returns the bitboards of the pieces on the board.
+     * @return The bitboards of the board.
+     */
+    public BitboardPosition getBitboards() {
+        return bitboards;
+    }
+
 
     /**
      * This method checks if a given a square is occupied.
@@ -218,7 +370,7 @@ public class Board
      * @return True if the squares is occupied otherwise false.
      */
     public boolean isOccupied(int file, int rank) {
-        return getSquare(file, rank).isOccupied();
+        return bitboards.isOccupied(BitboardPosition.getSquareIndex(file, rank));
     }
 
     /**
@@ -231,6 +383,15 @@ public class Board
         return boardSquares[rank][file];
     }
 
+    /**
+     * This method returns the square at a bitboard square index.
+     * @param squareIndex The index of the square in BitboardPosition.
+     * @return The specified square.
+     */
+    public Square getSquare(int squareIndex) {
+        return getSquare(BitboardPosition.getFile(squareIndex), BitboardPosition.getRank(squareIndex));
+    }
+
     public Square getSquare(File file, Rank rank) {
         return getSquare(file.getIndex(), rank.getIndex());
     }
@@ -240,28 +401,11 @@ public class Board
     }
 
     /**
-     * This method creates a new position object that will be saved into a list that saves all the
-     * previous position.
-     */
-    private void addPreviousPosition() {
-        detector.addPreviousPosition();
-    }
-
-    /**
-     * This method returns the previous position of the board.
-     * @return The last position on the board.
-     */
-    public Position getPreviousPosition() {
-        return detector.getPreviousPosition();
-    }
-
-    /**
-     * This method add the position to the counter that counts how many time the position has occur
-     * in the game.
-     * @param position The position which will be added.
+     * This method add the current position to the history that is used to count how many time the position has occur
+     * in the game. The position is saved by its Zobrist key.
      */
-    public void addToPositionCounter(Position position) {
-        boardCounter.addToPositionCounter(position);
+    public void addToPositionCounter() {
+        boardCounter.addToPositionCounter(zobristKey);
     }
 
     /**
@@ -272,12 +416,13 @@ public class Board
     }
 
     /**
-     * This method returns a map with FEN strings as a key and its value as an interger depending
-     * by the amount of time that the position has occured.
-     * @return  A map with Strings as key and Integer as value.
+     * This method returns the amount of times that the current position has occured. The history is only searched
+     * back to the last irreversible move, which is given by the fifty-move counter and by the last reset of the
+     * position counter.
+     * @return The amount of times the current position has occured.
      */
-    public Map<String, Integer> getPositionCounter() {
-        return boardCounter.getPositionCounter();
+    public int getPositionCount() {
+        return boardCounter.getRepetitionCount(getFiftyMoveCounter());
     }
 
     /**
@@ -303,6 +448,22 @@ public class Board
         return boardCounter.getFiftyMoveCounter();
     }
 
+    /**
+     * This method sets the fullmove number to a given value.
+     * @param value The number of the current move.
+     */
+    public void setFullMoveNumber(int value) {
+        boardCounter.setFullMoveNumber(value);
+    }
+
+    /**
+     * This method returns the fullmove number. It starts at 1 and increases after every move of black.
+     * @return The number of the current move.
+     */
+    public int getFullMoveNumber() {
+        return boardCounter.getFullMoveNumber();
+    }
+
     /**
      * This method sets the fifty-move counter back to zero.
      */
@@ -337,22 +498,6 @@ public class Board
         return detector.isSquareSelected(square);
     }
 
-    /**
-     * This method draws the board by going through all the square and calling its draw method. And
-     * if the square is occupied than draw its piece.
-     * @param graphics The ggraphics which will be drawn on.
-     */
-    public void draw(Graphics graphics){
-        for (Square[] rank : boardSquares) {
-            for (Square square : rank) {
-                square.draw(graphics);
-                if (square.isOccupied()) {
-                    square.getPiece().draw(graphics);
-                }
-            }
-        }
-    }
-
     /**
      * This is method will perform the given move object on the board. If isRealMove is set to true than it would check
      * for game over scenarios.
@@ -368,6 +513,206 @@ public class Board
         piece.move(move, this, isRealMove);
     }
 
+    /**
+     * This method performs a move on the board so that it could be taken back with unmakeMove. The move is encoded
+     * with PackedMove and performed with makeMove(int).
+     * @param move The move that will be performed.
+     */
+    public void makeMove(Move move) {
+        makeMove(PackedMove.fromMove(move, this));
+    }
+
+    /**
+     * This method performs an encoded move on the board so that it could be taken back with unmakeMove. The state that
+     * can not be recreated from the move, the captured piece, the castling rights, the en passant square and the
+     * fifty-move counter, is saved on the undo stack. The new position is added to the position history so that
+     * repetitions could be found. Unlike movePiece this method does not ask the user for a promotion piece and it
+     * switches the active player. It is used to test moves on the board without creating a new board.
+     * @param move The move encoded with PackedMove.
+     */
+    public void makeMove(int move) {
+        Square startingSquare = getSquare(PackedMove.getFrom(move));
+        Square destinationSquare = getSquare(PackedMove.getTo(move));
+        Piece piece = startingSquare.getPiece();
+
+        Square capturedSquare = destinationSquare;
+        if (PackedMove.isEnPassant(move)) {
+            //The captured pawn of an en passant is beside the pawn.
+            capturedSquare = getSquare(destinationSquare.getFile(), startingSquare.getRank());
+        }
+        Piece capturedPiece = capturedSquare.getPiece();
+
+        pushBoardState().save(move, piece, capturedPiece, capturedSquare, detector.getCastlingRights(),
+                              getEnPassantSquare(), getFiftyMoveCounter());
+
+        if (capturedPiece != null) {
+            takePiece(capturedSquare);
+        }
+        if (PackedMove.isPromotion(move)) {
+            //The pawn leaves the board and the promoted piece takes its place.
+            takePiece(startingSquare);
+            Piece promotedPiece = fenConverter.getPiece(PackedMove.getPromotionPieceType(move), piece.getColor());
+            getPlayerPieces(promotedPiece.getColor()).add(promotedPiece);
+            putOnSquare(promotedPiece, destinationSquare);
+        } else {
+            liftPiece(startingSquare);
+            putOnSquare(piece, destinationSquare);
+        }
+
+        if (PackedMove.isCastling(move)) {
+            moveCastlingRook(destinationSquare, true);
+        }
+
+        resetEnPassantSquare();
+        if (PackedMove.isDoublePush(move)) {
+            int enPassantRank = (startingSquare.getRank() + destinationSquare.getRank()) / 2;
+            setEnPassantSquare(getSquare(startingSquare.getFile(), enPassantRank));
+        }
+
+        updateCastlingRights(piece, startingSquare, destinationSquare);
+
+        if (piece.getPieceType() == PieceType.PAWN || capturedPiece != null) {
+            resetFiftyMoveCounter();
+        } else {
+            increaseFiftyMoveCounter();
+        }
+        if (piece.getColor() == Side.BLACK) {
+            setFullMoveNumber(getFullMoveNumber() + 1);
+        }
+        switchTurns();
+        addToPositionCounter();
+    }
+
+    /**
+     * This method takes back the last move that was performed with makeMove. The board will be exactly as it was
+     * before the move, including the castling rights, the en passant square and the fifty-move counter.
+     */
+    public void unmakeMove() {
+        boardCounter.removeLastPosition();
+        undoSize--;
+        BoardState boardState = undoStack[undoSize];
+        int move = boardState.getMove();
+        Square startingSquare = getSquare(PackedMove.getFrom(move));
+        Square destinationSquare = getSquare(PackedMove.getTo(move));
+        Piece piece = boardState.getMovedPiece();
+
+        switchTurns();
+        if (piece.getColor() == Side.BLACK) {
+            setFullMoveNumber(getFullMoveNumber() - 1);
+        }
+        if (PackedMove.isCastling(move)) {
+            moveCastlingRook(destinationSquare, false);
+        }
+        if (PackedMove.isPromotion(move)) {
+            takePiece(destinationSquare);
+            getPlayerPieces(piece.getColor()).add(piece);
+        } else {
+            liftPiece(destinationSquare);
+        }
+        putOnSquare(piece, startingSquare);
+
+        Piece capturedPiece = boardState.getCapturedPiece();
+        if (capturedPiece != null) {
+            getPlayerPieces(capturedPiece.getColor()).add(capturedPiece);
+            putOnSquare(capturedPiece, boardState.getCapturedSquare());
+        }
+
+        setCastlingRights(boardState.getCastlingRights());
+        setEnPassantSquare(boardState.getEnPassantSquare());
+        setFiftyMoveCounter(boardState.getFiftyMoveCounter());
+        boardState.clear();
+    }
+
+    /**
+     * This method returns the next free entry of the undo stack. The entries are reused between moves so that
+     * performing a move does not create any objects once the stack is deep enough.
+     * @return The board state that the next move is saved in.
+     */
+    private BoardState pushBoardState() {
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        if (undoStack[undoSize] == null) {
+            undoStack[undoSize] = new BoardState();
+        }
+        BoardState boardState = undoStack[undoSize];
+        undoSize++;
+        return boardState;
+    }
+
+    /**
+     * This method removes a piece from its square and from the pieces list without resetting the position counter.
+     * It is used when a captured piece will be put back with unmakeMove.
+     * @param square The square of the piece that will be taken.
+     */
+    private void takePiece(Square square) {
+        Piece piece = square.getPiece();
+        getPlayerPieces(piece.getColor()).remove(piece);
+        clearSquare(square);
+    }
+
+    /**
+     * This method moves the rook of a castling move. The rook is moved from its corner to the square next to the
+     * king or back again when the move is taken back.
+     * @param kingDestination The square that the king castled to.
+     * @param forward True if the castling is performed and false if it is taken back.
+     */
+    private void moveCastlingRook(Square kingDestination, boolean forward) {
+        int rank = kingDestination.getRank();
+        boolean isLongCastle = kingDestination.getFile() == File.C.getIndex();
+        Square cornerSquare = isLongCastle ? getSquare(File.A, rank) : getSquare(File.H, rank);
+        Square rookSquare = isLongCastle ? getSquare(File.D, rank) : getSquare(File.F, rank);
+
+        Square fromSquare = forward ? cornerSquare : rookSquare;
+        Square toSquare = forward ? rookSquare : cornerSquare;
+        Piece rook = fromSquare.getPiece();
+        liftPiece(fromSquare);
+        putOnSquare(rook, toSquare);
+    }
+
+    /**
+     * This method removes the castling rights that are lost by a move. A king move removes both of its castling
+     * rights and a move from or to a corner removes the castling right of that corner.
+     * @param piece The piece that was moved.
+     * @param startingSquare The starting square of the move.
+     * @param destinationSquare The destination square of the move.
+     */
+    private void updateCastlingRights(Piece piece, Square startingSquare, Square destinationSquare) {
+        if (piece.getPieceType() == PieceType.KING) {
+            boolean isWhite = piece.getColor().equals(Side.WHITE);
+            setCastlingRight(isWhite ? CastlingRight.WHITE_SHORT : CastlingRight.BLACK_SHORT, false);
+            setCastlingRight(isWhite ? CastlingRight.WHITE_LONG : CastlingRight.BLACK_LONG, false);
+        }
+        removeCornerCastlingRight(startingSquare);
+        removeCornerCastlingRight(destinationSquare);
+    }
+
+    /**
+     * This method removes the castling right that belongs to a corner square. If the square is not a corner than
+     * nothing happens.
+     * @param square The square to check.
+     */
+    private void removeCornerCastlingRight(Square square) {
+        int file = square.getFile();
+        int rank = square.getRank();
+        boolean isFileA = file == File.A.getIndex();
+        boolean isFileH = file == File.H.getIndex();
+
+        if (rank == Rank.ONE.getIndex()) {
+            if (isFileA) {
+                setCastlingRight(CastlingRight.WHITE_LONG, false);
+            } else if (isFileH) {
+                setCastlingRight(CastlingRight.WHITE_SHORT, false);
+            }
+        } else if (rank == Rank.EIGHT.getIndex()) {
+            if (isFileA) {
+                setCastlingRight(CastlingRight.BLACK_LONG, false);
+            } else if (isFileH) {
+                setCastlingRight(CastlingRight.BLACK_SHORT, false);
+            }
+        }
+    }
+
     /**
      * This method select a square on the board. Select means that if that square has a piece than we should draw all
      * of its possible moves on the board. After the user selects a piece and next press a square that the piece could
@@ -387,8 +732,8 @@ public class Board
                 //If the square is occupied that we check all the possible squares that the piece could move to and
                 //and add them to the squareSelectedList.
                 if (square.isOccupied()) {
-                    Color pieceColor = square.getPiece().getColor();
-                    if ((getIsWhiteTurn() && pieceColor.equals(Color.WHITE)) || (!getIsWhiteTurn() && pieceColor.equals(Color.BLACK))) {
+                    Side pieceColor = square.getPiece().getColor();
+                    if ((getIsWhiteTurn() && pieceColor == Side.WHITE) || (!getIsWhiteTurn() && pieceColor == Side.BLACK)) {
                         addSelectedSquares(square.getPiece().getValidMoves(this, true));
                         setSelectedSquare(square);
                     }
@@ -400,15 +745,30 @@ public class Board
                 Move move = new Move(selectedSquare, square);
                 movePiece(move, true);
                 increaseFiftyMoveCounter();
-                addPreviousPosition();
-                addToPositionCounter(getPreviousPosition());
+                if (!getIsWhiteTurn()) {
+                    setFullMoveNumber(getFullMoveNumber() + 1);
+                }
+                switchTurns();
+                addToPositionCounter();
                 setGameOver();
                 clearSelected();
-                switchTurns();
             }
         }
     }
 
+    /**
+     * This method plays an encoded move as a move of the game, like a move that the user has selected. It is used to
+     * play the moves of the computer, which already knows the promotion piece so the user is not asked for it. The
+     * selected squares are removed and the game over scenarios are checked after the move.
+     * @param move The move encoded with PackedMove, it has to be a legal move.
+     */
+    public void playMove(int move) {
+        makeMove(move);
+        setGameOver();
+        clearSelected();
+        removeSelectedSquare();
+    }
+
     /**
      * This method gets the selected Square.
      * @return The selected square
@@ -447,7 +807,27 @@ public class Board
      * @param change The boolean value that will be placed.
      */
     public void setCastlingRight(CastlingRight castlingRight , boolean value) {
+        zobristKey ^= Zobrist.getCastlingKey(detector.getCastlingRights());
         detector.setCastlingRight(castlingRight, value);
+        zobristKey ^= Zobrist.getCastlingKey(detector.getCastlingRights());
+    }
+
+    /**
+     * This method returns all of the castling rights as a bitmask.
+     * @return The castling rights where the bit of a right is given by its ordinal.
+     */
+    public int getCastlingRights() {
+        return detector.getCastlingRights();
+    }
+
+    /**
+     * This method sets all of the castling rights from a bitmask.
+     * @param castlingRights The castling rights as a bitmask where the bit of a right is given by its ordinal.
+     */
+    public void setCastlingRights(int castlingRights) {
+        zobristKey ^= Zobrist.getCastlingKey(detector.getCastlingRights());
+        detector.setCastlingRights(castlingRights);
+        zobristKey ^= Zobrist.getCastlingKey(castlingRights);
     }
 
     /**
@@ -460,6 +840,114 @@ public class Board
         return validMoves;
     }
 
+    /**
+     * This method adds all of the legal moves of a color to a move list. The moves are generated with the check and
+     * pin masks of MoveGenerator so no move is performed on the board.
+     * @param color The color of the player.
+     * @param moves The list that the encoded moves are added to.
+     */
+    public void generateLegalMoves(Side color, MoveList moves) {
+        moveGenerator.generateLegalMoves(BitboardPosition.getColorIndex(color), moves);
+    }
+
+    /**
+     * This method adds the legal captures and promotions of a color to a move list, see
+     * MoveGenerator.generateLegalCaptures.
+     * @param color The color of the player.
+     * @param moves The list that the encoded moves are added to.
+     */
+    public void generateLegalCaptures(Side color, MoveList moves) {
+        moveGenerator.generateLegalCaptures(BitboardPosition.getColorIndex(color), moves);
+    }
+
+    /**
+     * This method adds the legal moves of a color that neither capture nor promote to a move list, see
+     * MoveGenerator.generateLegalQuiets.
+     * @param color The color of the player.
+     * @param moves The list that the encoded moves are added to.
+     */
+    public void generateLegalQuiets(Side color, MoveList moves) {
+        moveGenerator.generateLegalQuiets(BitboardPosition.getColorIndex(color), moves);
+    }
+
+    /**
+     * This method checks if an encoded move is legal for a color in the current position. The move is tested against
+     * the bitboards with MoveGenerator.isPseudoLegal and MoveGenerator.isKingSafeAfter, so a move from the
+     * transposition table or a killer move could be tested without generating any moves.
+     * @param color The color of the player.
+     * @param move The encoded move or PackedMove.NO_MOVE.
+     * @return True if the move is legal.
+     */
+    public boolean isLegalMove(Side color, int move) {
+        int colorIndex = BitboardPosition.getColorIndex(color);
+        return moveGenerator.isPseudoLegal(colorIndex, move) && moveGenerator.isKingSafeAfter(colorIndex, move);
+    }
+
+    /**
+     * This method counts the legal moves of a color without generating them. It is used when only the amount of moves
+     * is needed, like at the last ply of perft.
+     * @param color The color of the player.
+     * @return The amount of legal moves.
+     */
+    public int countLegalMoves(Side color) {
+        return moveGenerator.countLegalMoves(BitboardPosition.getColorIndex(color));
+    }
+
+    /**
+     * This method checks if a color has any legal move without generating the moves. It stops at the first piece that
+     * could move.
+     * @param color The color of the player.
+     * @return True if the color has at least one legal move.
+     */
+    public boolean hasAnyLegalMove(Side color) {
+        return moveGenerator.hasAnyLegalMove(BitboardPosition.getColorIndex(color));
+    }
+
+    /**
+     * This method returns all of the legal moves of a color as move objects.
+     * @param color The color of the player.
+     * @return A list of legal moves.
+     */
+    public List<Move> getLegalMoves(Side color) {
+        MoveList moves = new MoveList();
+        generateLegalMoves(color, moves);
+        return toMoveObjects(moves);
+    }
+
+    /**
+     * This method returns the legal moves of a single piece.
+     * @param piece The piece that will be moved.
+     * @return A list of legal moves of the piece.
+     */
+    public List<Move> getLegalMoves(Piece piece) {
+        Square square = piece.getSquare();
+        long fromSquare = 1L << BitboardPosition.getSquareIndex(square.getFile(), square.getRank());
+        MoveList moves = new MoveList();
+        moveGenerator.generateLegalMoves(BitboardPosition.getColorIndex(piece.getColor()), fromSquare, moves);
+        return toMoveObjects(moves);
+    }
+
+    /**
+     * This method converts a list of encoded moves to move objects.
+     * @param moves The encoded moves.
+     * @return A list of move objects.
+     */
+    private List<Move> toMoveObjects(MoveList moves) {
+        List<Move> moveObjects = new ArrayList<>(moves.size());
+        for (int index = 0; index < moves.size(); index++) {
+            moveObjects.add(PackedMove.toMove(moves.get(index), this));
+        }
+        return moveObjects;
+    }
+
+    /**
+     * This method returns the move generator of the board.
+     * @return The move generator.
+     */
+    public MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
     /**
      * This method converts the current board to a fen string.
      * @return The fen string of the board.
@@ -468,13 +956,71 @@ public class Board
         return fenConverter.convertBoardToFen(this);
     }
 
+    /**
+     * This method appends the FEN of the board to a string builder given by the caller.
+     * @param fen The string builder that the FEN is appended to.
+     */
+    public void appendFen(StringBuilder fen) {
+        fenConverter.appendFen(this, fen);
+    }
+
+    /**
+     * This method writes the FEN of the board as ASCII bytes into a byte buffer given by the caller.
+     * @param buffer The buffer that the FEN is put into.
+     */
+    public void writeFen(ByteBuffer buffer) {
+        fenConverter.writeFen(this, buffer);
+    }
+
+    /**
+     * This method appends the EPD of the board, with the hmvc and fmvn operations, to a string builder.
+     * @param epd The string builder that the EPD is appended to.
+     */
+    public void appendEpd(StringBuilder epd) {
+        fenConverter.appendEpd(this, epd);
+    }
+
+    /**
+     * This method writes the EPD of the board as ASCII bytes into a byte buffer given by the caller.
+     * @param buffer The buffer that the EPD is put into.
+     */
+    public void writeEpd(ByteBuffer buffer) {
+        fenConverter.writeEpd(this, buffer);
+    }
+
     /**
      * This method load a given position on the board.
      * @param position The position that will be loaded on the board.
      */
     public void loadPosition(Position position) {
-        fenConverter.loadPosition(position, this);
-        addToPositionCounter(position);
+        loadFen(position.getFen());
+    }
+
+    /**
+     * This method loads a FEN string on the board. The moves that could be taken back and the position history
+     * are removed since they belong to the old position.
+     * @param fen The FEN string of the position.
+     * @throws FenParseException If the FEN string is malformed.
+     */
+    public void loadFen(CharSequence fen) {
+        undoSize = 0;
+        fenConverter.loadFen(fen, this);
+        resetPositionCounter();
+        zobristKey = computeZobristKey();
+        enPassantKey = getEnPassantSquareKey();
+        addToPositionCounter();
+    }
+
+    /**
+     * This method copies the position of another board to this board, together with the position history and the
+     * fifty-move counter. A board that is loaded from the FEN of the other board does not know the positions that
+     * were played before, so it could not see a repetition of them. The pieces are placed from the FEN of the other
+     * board, and the moves that could be taken back are not copied.
+     * @param other The board that will be copied.
+     */
+    public void copyFrom(Board other) {
+        loadFen(other.convertBoardToFen());
+        boardCounter.copyFrom(other.boardCounter);
     }
 
     public void setGameOver() {
@@ -482,6 +1028,14 @@ public class Board
         setGameOverType(gameOverType);
     }
 
+    /**
+     * This method makes the next check of the game over look for a legal move in the current position again instead
+     * of using the cached answer, see BoardScanner.forgetValidMove.
+     */
+    public void forgetValidMove() {
+        detector.forgetValidMove(this);
+    }
+
     /**
      * This method checks if a given square coordinate is inside the board.
      * @param file The file of the square.
@@ -499,21 +1053,46 @@ public class Board
      * @param color The opposite color.
      * @return True if the square is attacked by the opposite color.
      */
-    public boolean isSquareAttacked(int file, int rank, Color color) {
+    public boolean isSquareAttacked(int file, int rank, Side color) {
         return detector.isSquareAttacked(file, rank, color, this);
     }
 
+    /**
+     * This method checks if the king of a side is in check. The attackers of the king square are found with the
+     * bitboards so the pieces do not have to be looked through.
+     * @param side The side of the king.
+     * @return True if the king is attacked, false if it is not or if the side has no king.
+     */
+    public boolean isKingInCheck(Side side) {
+        int colorIndex = BitboardPosition.getColorIndex(side);
+        long king = bitboards.getPieces(PieceType.KING, colorIndex);
+        if (king == 0) {
+            return false;
+        }
+        int kingSquare = Long.numberOfTrailingZeros(king);
+        return moveGenerator.getAttackers(kingSquare, colorIndex ^ 1, bitboards.getOccupancy()) != 0;
+    }
+
+    /**
+     * This method returns all the pieces of a color that attacks a square. The attackers are found by looking out
+     * from the square with the knight, king and pawn attack patterns and the sliding attack tables, so no moves are
+     * generated.
+     * @param square The square that is attacked.
+     * @param color The color of the attacking pieces.
+     * @return A bitboard of the squares of the attacking pieces.
+     */
+    public long attackersTo(Square square, Side color) {
+        int squareIndex = BitboardPosition.getSquareIndex(square.getFile(), square.getRank());
+        return moveGenerator.getAttackers(squareIndex, BitboardPosition.getColorIndex(color), bitboards.getOccupancy());
+    }
+
     /**
      * This method gets the a specific players pieces.
      * @param color The color of the player that want to be returned.
      * @return A list of player pieces.
      */
-    public List<Piece> getPlayerPieces(Color color) {
-        if (color.equals(Color.WHITE)) {
-            return pieces.get(0);
-        } else {
-            return pieces.get(1);
-        }
+    public List<Piece> getPlayerPieces(Side color) {
+        return pieces.get(color.ordinal());
     }
 
     /**
@@ -523,6 +1102,13 @@ public class Board
         for (List<Piece> playerPieces : pieces) {
             playerPieces.clear();
         }
+        for (Square[] rank : boardSquares) {
+            for (Square square : rank) {
+                square.removePiece();
+            }
+        }
+        bitboards.clear();
+        material.clear();
     }
 }
 
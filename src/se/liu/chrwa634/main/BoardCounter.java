@@ -1,22 +1,30 @@
 package se.liu.chrwa634.main;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * This class has counters which counts different aspects on the baord. One counter is for counting
  * The amount of times a position has occured on the board. Another counter counts the number of moves
  * in which there has not been any capture of movements of pawns. This counters are useful for determining
  * if a gameover criteria has been reached.
+ *
+ * The positions are saved as a history of their Zobrist keys in a primitive array, so counting a position does not
+ * create any objects. The history only goes back to the last irreversible move.
  */
 public class BoardCounter
 {
-    private Map<String, Integer> positionCounter;
+    private static final int DEFAULT_CAPACITY = 128;
+
+    private long[] positionHistory;
+    private int historySize;
     private int fiftyMoveCounter;
+    private int fullMoveNumber;
 
     public BoardCounter() {
-        positionCounter = new HashMap<>();
+        positionHistory = new long[DEFAULT_CAPACITY];
+        historySize = 0;
         setFiftyMoveCounter(0);
+        setFullMoveNumber(1);
     }
 
     /**
@@ -47,33 +55,82 @@ public class BoardCounter
     }
 
     /**
-     * This method adds a position into the position counter.
-     * @param position The position that will be added.
+     * This method sets the fullmove number to the given value.
+     * @param fullMoveNumber The number of the current move, it starts at 1 and increases after every black move.
+     */
+    public void setFullMoveNumber(int fullMoveNumber) {
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    /**
+     * This method returns the fullmove number.
+     * @return The number of the current move.
      */
-    public void addToPositionCounter(Position position) {
-	String fenPositionNotation = position.getPositionNotation();
-	if (positionCounter.containsKey(fenPositionNotation)) {
-	    int oldValue = positionCounter.get(fenPositionNotation);
-	    oldValue ++;
-	    positionCounter.replace(fenPositionNotation, oldValue);
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * This method adds a position to the end of the position history.
+     * @param key The Zobrist key of the position that will be added.
+     */
+    public void addToPositionCounter(long key) {
+	if (historySize == positionHistory.length) {
+	    positionHistory = Arrays.copyOf(positionHistory, positionHistory.length * 2);
 	}
-	else {
-	    positionCounter.put(fenPositionNotation, 1);
+	positionHistory[historySize] = key;
+	historySize++;
+    }
+
+    /**
+     * This method removes the last position of the position history. It is used when a move is taken back.
+     */
+    public void removeLastPosition() {
+	if (historySize > 0) {
+	    historySize--;
 	}
     }
 
     /**
-     * This method reset the position counter. 
+     * This method returns the amount of times the last position of the history has occured. Only the positions with
+     * the same side to move are compared, which is every second position, and the search stops at the last
+     * irreversible move since no position before it could occur again.
+     * @param reversiblePlies The amount of plies since the last capture or pawn move.
+     * @return The amount of times the last position has occured, including the last time.
      */
-    public void resetPositionCounter() {
-        positionCounter.clear();
+    public int getRepetitionCount(int reversiblePlies) {
+	if (historySize == 0) {
+	    return 0;
+	}
+	int lastIndex = historySize - 1;
+	long key = positionHistory[lastIndex];
+	int firstIndex = Math.max(0, lastIndex - reversiblePlies);
+	int count = 1;
+	for (int index = lastIndex - 2; index >= firstIndex; index -= 2) {
+	    if (positionHistory[index] == key) {
+		count++;
+	    }
+	}
+	return count;
     }
 
     /**
-     * This method returns the positionCounter.
-     * @return The position counter. 
+     * This method copies the position history and the counters of another counter, so that a position that is copied
+     * to another board keeps the positions that were played before it.
+     * @param other The counter that will be copied.
      */
-    public Map<String, Integer> getPositionCounter() {
-	return positionCounter;
+    public void copyFrom(BoardCounter other) {
+	positionHistory = Arrays.copyOf(other.positionHistory, Math.max(DEFAULT_CAPACITY, other.positionHistory.length));
+	historySize = other.historySize;
+	fiftyMoveCounter = other.fiftyMoveCounter;
+	fullMoveNumber = other.fullMoveNumber;
+    }
+
+    /**
+     * This method reset the position counter. It is called after an irreversible move so the positions before it
+     * are removed from the history.
+     */
+    public void resetPositionCounter() {
+	historySize = 0;
     }
 }
@@ -1,8 +1,8 @@
 package se.liu.chrwa634.main;
 
 import se.liu.chrwa634.pieces.Piece;
+import se.liu.chrwa634.pieces.Side;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
@@ -17,11 +17,17 @@ import java.util.Map;
  */
 public class BoardScanner
 {
+    private static final int VALID_MOVE_CACHE_SIZE = 1024;
+    private static final byte UNKNOWN = 0;
+    private static final byte HAS_VALID_MOVE = 1;
+    private static final byte NO_VALID_MOVE = 2;
+
     private Board board;
+    private final long[] validMoveCacheKeys = new long[VALID_MOVE_CACHE_SIZE];
+    private final byte[] validMoveCacheResults = new byte[VALID_MOVE_CACHE_SIZE];
 
     private List<Square> squareSelected = new ArrayList<>();
     private Square selectedSquare;
-    private List<Position> previousPosition = new ArrayList<>();
     private Square enPassantSquare;
     private EnumMap<CastlingRight, Boolean> castlingRightMap = new EnumMap<>(CastlingRight.class);
     private boolean isWhiteTurn;
@@ -30,7 +36,8 @@ public class BoardScanner
         this.isWhiteTurn = true;
         this.board = board;
 	enPassantSquare = null;
-	selectedSquare = new Square(-1, -1, Color.WHITE, this.board);
+	selectedSquare = new Square(-1, -1, Side.WHITE, this.board);
+	setCastlingRights(0);
     }
 
     /**
@@ -67,199 +74,108 @@ public class BoardScanner
 
 
     /**
-     * This method checks if the given color king is currently in check.
+     * This method checks if the given color king is currently in check. The attackers of the king are found with the
+     * bitboards of the board.
      * @param color The kings color.
      * @return True if the king is in check.
      */
-    public boolean isKingInCheck(Color color, Board board) {
-        List<Piece> pieces = board.getPlayerPieces(color);
-        // Check if any piece with that color is in check.
-	for (Piece piece : pieces) {
-	    if (piece.isInCheck()) {
-	        return true;
-	    }
-	}
-	return false;
+    public boolean isKingInCheck(Side color, Board board) {
+	return board.isKingInCheck(color);
     }
 
     /**
-     * This method checks if the current position on the board has met a gameOver criteria.
+     * This method checks if the current position on the board has met a gameOver criteria. The checks are done from
+     * the cheapest to the most expensive. A checkmate is the only result that goes before a draw, and it needs the
+     * king to be in check, so if the king is not in check the draw rules are checked first. They only compare
+     * counters that the board already keeps. The legal moves are only looked for after that, and the search stops at
+     * the first legal move. Whether a position has a legal move is also saved by its Zobrist key so the same
+     * position is never searched twice.
      * @param board The board that will be checked.
      * @return A gameOverType corresponding to the gameover. If there was no criteria met return GameOverType.NULL.
      */
-
     public GameOverType getGameOver(Board board) {
-        Color color = board.getIsWhiteTurn() ? Color.BLACK : Color.WHITE;
+        Side color = board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+	boolean isInCheck = board.isKingInCheck(color);
 
-        // Check for stalemate or checkmate
-        if (!hasValidMove(board)) {
-            if (isKingInCheck(color, board)) {
-                return GameOverType.CHECKMATE;
-	    }
-            else {
-                return GameOverType.STALEMATE;
+	if (!isInCheck) {
+	    GameOverType draw = getDraw(board);
+	    if (draw != GameOverType.NULL) {
+		return draw;
 	    }
 	}
 
-        // Check for three fold repetition.
-	else if (isThreeFoldRepetition(board)) {
+        // Check for stalemate or checkmate
+	if (!hasValidMove(board)) {
+	    return isInCheck ? GameOverType.CHECKMATE : GameOverType.STALEMATE;
+	}
+	return isInCheck ? getDraw(board) : GameOverType.NULL;
+    }
+
+    /**
+     * This method checks the rules that make the game a draw even though the player to move has a legal move.
+     * @param board The board that will be checked.
+     * @return The draw that has been reached or GameOverType.NULL.
+     */
+    private GameOverType getDraw(Board board) {
+	if (isThreeFoldRepetition(board)) {
 	    return GameOverType.THREEFOLD_REPETITION;
 	}
-	// check for insufficientpieces.
-	else if(isInsufficientPieces(board)) {
+	else if (isInsufficientPieces(board)) {
 	    return GameOverType.INSUFFICIENT_PIECE;
 	}
-
-	// Check for fiftymove rule
 	else if (isFiftyMoveDraw(board)) {
 	    return GameOverType.FIFTY_MOVE_DRAW;
 	}
-
 	return GameOverType.NULL;
     }
 
     /**
-     * Check if the current active player on a board has a validMove.
+     * Check if the current active player on a board has a validMove. The answer is taken from the cache if the
+     * position has been checked before, otherwise the legal moves are looked for without generating them.
      * @param board The board which will be checked.
      * @return true if the player has a valid move otherwise false.
      */
     public boolean hasValidMove(Board board) {
-	Color color = board.getIsWhiteTurn() ? Color.BLACK : Color.WHITE;
-	List<Piece> playerPieces = board.getPlayerPieces(color);
-
-	// check if any of the player piece has a valid move.
-	for (Piece piece : playerPieces) {
-	    List<Move> validMoves = piece.getValidMoves(board, true);
-	    if (!validMoves.isEmpty()) {
-		return true;
-	    }
+	Side color = board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+	long key = board.getZobristKey();
+	int index = getValidMoveCacheIndex(key);
+	if (validMoveCacheKeys[index] == key && validMoveCacheResults[index] != UNKNOWN) {
+	    return validMoveCacheResults[index] == HAS_VALID_MOVE;
 	}
-	return false;
-    }
-
 
-    /**
-     * This method checks if a square is attacked by the given color. Attack means that a piece of the specified color could
-     * move to that square.
-     * @param file The file of the square that will be checked.
-     * @param rank The rank of the square that will be checked.
-     * @param color The color of the piece that can move to the square.
-     * @param board The board that will be checked.
-     * @return
-     */
-    public boolean isSquareAttacked(int file, int rank, Color color, Board board){
-
-	//check if any piece is attacking from different directions.
-	for (int fileDirection = -1; fileDirection <= 1; fileDirection++) {
-	    for (int rankDirection = -1; rankDirection <= 1; rankDirection++) {
-		if (!(fileDirection == 0 && rankDirection == 0) && isLineAttacked(file, rank, fileDirection, rankDirection, color, board)) {
-		    return true;
-		}
-	    }
-	}
-
-	//check for knights by checking all the squares that a knight could attack from.
-	if (isSquareAttackedByKnights(file, rank, color, board)) {
-	    return true;
-	}
-	return false;
+	// The moves are not generated, the search stops at the first piece that has a legal move.
+	boolean hasValidMove = board.hasAnyLegalMove(color);
+	validMoveCacheKeys[index] = key;
+	validMoveCacheResults[index] = hasValidMove ? HAS_VALID_MOVE : NO_VALID_MOVE;
+	return hasValidMove;
     }
 
-
     /**
-     * This method checks if a line is attacked. A line means a horizontal or a diagonal direction from a square.
-     * @param file The file of the square that will be checked.
-     * @param rank The rank of the square that will be checked.
-     * @param fileDirection The direction that the file will move every iteration.
-     * @param rankDirection The direction that the rank will move every iteration.
-     * @param board The board which will be checked on.
-     * @return True if the squre is attacked from the specified direction.
+     * This method removes the cached answer of hasValidMove for the current position of a board, so that the next call
+     * looks for a legal move again. It is used by the benchmarks that measure the check itself rather than the cache.
+     * @param board The board with the position that will be removed from the cache.
      */
-    public boolean isLineAttacked(int file, int rank, int fileDirection, int rankDirection, Color color, Board board){
-	int checkFile = file + fileDirection;
-	int checkRank = rank + rankDirection;
-	Square square = board.getSquare(file, rank);
-
-	while(true) {
-	    // while we are still inside the board keep checking.
-	    if (!isSquareInsideBoard(checkFile, checkRank)) {
-	        // If we have reached outside the board then return false.
-		return false;
-	    }
-	    // if the square is occupied...
-	    Square checkSquare = board.getSquare(checkFile, checkRank);
-	    if (isPieceAttackingSquare(checkSquare, square, color)) {
-	        return true;
-	    }
-	    // If no stop condition were met keep looking
-	    checkFile += fileDirection;
-	    checkRank += rankDirection;
-	}
+    public void forgetValidMove(Board board) {
+	validMoveCacheResults[getValidMoveCacheIndex(board.getZobristKey())] = UNKNOWN;
     }
 
-    /**
-     * This method return true if the given piece color matches the given color.
-     * @param piece The piece to check.
-     * @param color The color to check.
-     * @return true if the piece color and color are the same.
-     */
-    public boolean isFriendlyPiece(Piece piece, Color color) {
-        return piece.getColor().equals(color);
+    private static int getValidMoveCacheIndex(long key) {
+	return (int) key & (VALID_MOVE_CACHE_SIZE - 1);
     }
 
+
     /**
-     * This method checks if a specific square is attacked by a knight.
+     * This method checks if a square is attacked by the given color. Attack means that a piece of the specified color could
+     * capture a piece on that square. The attackers are found with Board.attackersTo which looks out from the square
+     * so no moves have to be generated.
      * @param file The file of the square that will be checked.
      * @param rank The rank of the square that will be checked.
-     * @param fileDirection The file direction of the square relative to the square that is going to be checked.
-     * @param rankDirection The rank direction of the square relative to the square that is going to be checked.
-     * @param board The board in which we checked the squares.
-     * @return True if the square is being attacked by a knight on the given direction.
-     */
-    public boolean isSquareAttackedByKnights(int file, int rank, Color color, Board board) {
-	final int squareSearch = 2;
-	final Square square = board.getSquare(file, rank);
-
-	for (int fileDirection = -squareSearch; fileDirection <= squareSearch; fileDirection++) {
-	    for (int rankDirection = -squareSearch; rankDirection <= squareSearch; rankDirection++) {
-		if((fileDirection + rankDirection) % 2 != 0 && fileDirection != 0 && rankDirection != 0) {
-		    int checkFile = file + fileDirection;
-		    int checkRank = rank + rankDirection;
-
-		    if (isSquareInsideBoard(checkFile, checkRank)) {
-			Square checkSquare = board.getSquare(checkFile, checkRank);
-			if (isPieceAttackingSquare(checkSquare, square, color)) {
-			    return true;
-			}
-		    }
-		}
-	    }
-	}
-	return false;
-    }
-
-    /**
-     * This method checks if a given square pieceSquare has a piece with the right color that could move to
-     * the square checkSquare.
-     * @param pieceSquare The square that could have a valid piece.
-     * @param checkSquare The square which the piece should be able to move to.
-     * @param color The color that the piece should have.
-     * @return True if valid piece exist in the pieceSquare.
+     * @param color The color of the piece that can move to the square.
+     * @param board The board that will be checked.
+     * @return True if the square is attacked.
      */
-    public boolean isPieceAttackingSquare(Square pieceSquare, Square checkSquare, Color color) {
-        if (pieceSquare.isOccupied()) {
-	    Piece piece = pieceSquare.getPiece();
-	    if (isFriendlyPiece(piece, color)) {
-		List<Move> validMoves = piece.getValidMoves(board, false);
-		for (Move validMove : validMoves) {
-		    Square destinationSquare = validMove.getDestinationSquare(board);
-		    if (destinationSquare.equals(checkSquare)) {
-			return true;
-		    }
-		}
-	    }
-	}
-	return false;
+    public boolean isSquareAttacked(int file, int rank, Side color, Board board){
+	return board.attackersTo(board.getSquare(file, rank), color) != 0;
     }
 
     /**
@@ -281,86 +197,31 @@ public class BoardScanner
      * @return The list of move that are valid.
      */
     public List<Move> removeInvalidMoves(List<Move> movesToCheck) {
-        String position = board.convertBoardToFen();
         List<Move> validMoves = new ArrayList<>();
         //Go through all the moves...
 	for (Move move : movesToCheck) {
 	    Piece pieceToMove = move.getStartingSquare(board).getPiece();
-	    Color color = pieceToMove.getColor();
+	    Side color = pieceToMove.getColor();
 
-	    // Create a seperate board with the current position loaded and perform the move on the board.
-	    Board imaginaryBoard = new Board();
-	    imaginaryBoard.loadPosition(new Position(position));
-	    // it is not a realmove so set that to false.
-	    imaginaryBoard.movePiece(move, false);
+	    // Perform the move on the board and take it back after the king has been checked.
+	    board.makeMove(move);
 	    // If the king is not in check after performing the move than it is a vliad move.
-	    if (!isKingInCheck(color, imaginaryBoard)) {
+	    if (!isKingInCheck(color, board)) {
 	        validMoves.add(move);
 	    }
+	    board.unmakeMove();
 	}
 	return validMoves;
     }
 
     /**
-     * This method checks if both of the player has sufficient pieces to checkmate their opponent.
+     * This method checks if both of the player has sufficient pieces to checkmate their opponent. The piece counts
+     * are kept by the board so this is only a lookup, see Material.isInsufficientMaterial.
      * @param board The board that will be checked.
      * @return true if both of the player does not have sufficient pieces to checkmate the opponent.
      */
     private boolean isInsufficientPieces(Board board) {
-        List<Piece> whitePieces = board.getPlayerPieces(Color.WHITE);
-        List<Piece> blackPieces = board.getPlayerPieces(Color.BLACK);
-
-	if (isInsufficientMaterial(whitePieces) && isInsufficientMaterial(blackPieces)) {
-	    return true;
-	}
-	else {
-	    return false;
-	}
-    }
-
-    /**
-     * This method checks if a the list of pieces can checkmate.
-     * @param pieces The list of pieces to check.
-     * @return false if the list of pieces can checkmate.
-     */
-    public boolean isInsufficientMaterial(List<Piece> pieces) {
-	final int sufficientAmountOfPieces = 3;
-
-        if (pieces.size() >= sufficientAmountOfPieces) {
-            boolean blackBishop = false;
-            boolean whiteBishop = false;
-            int nonBishopPiece = 0;
-            final int maxAmountOfNonBishopPiece = 2;
-            final char bishopChar = 'b';
-	    for (Piece piece : pieces) {
-	        char lowerFenChar = Character.toLowerCase(piece.getFenChar());
-	        if (lowerFenChar == bishopChar) {
-	                Square pieceSquare = piece.getSquare();
-	                Color color = pieceSquare.getColor();
-
-	                if (color.equals(Color.WHITE)) {
-	                    whiteBishop = true;
-			} else {
-	                    blackBishop = true;
-			}
-		    }
-		else {
-		    nonBishopPiece += 1;
-		}
-
-		if ((whiteBishop && blackBishop) || nonBishopPiece >= maxAmountOfNonBishopPiece) {
-		    return false;
-		}
-	    }
-	}
-        else {
-	    for (Piece piece : pieces) {
-		if (piece.canDeliverMateAlone()) {
-		    return false;
-		}
-	    }
-	}
-        return true;
+	return board.getMaterial().isInsufficientMaterial();
     }
 
     /**
@@ -371,22 +232,18 @@ public class BoardScanner
     public boolean isThreeFoldRepetition(Board board) {
         final int maxRepeatedPosition = 3;
 
-	Map<String, Integer> positionCounter = board.getPositionCounter();
-	for (int amountPositionRepeated : positionCounter.values()) {
-	    if (amountPositionRepeated >= maxRepeatedPosition) {
-	        return true;
-	    }
-	}
-	return false;
+	//A position that was repeated earlier would already have ended the game, so only the current one is checked.
+	return board.getPositionCount() >= maxRepeatedPosition;
     }
 
     /**
-     * This method checks if there has not been any captures or movements of pawn in 50 moves.
+     * This method checks if there has not been any captures or movements of pawn in 50 moves. The fifty-move counter
+     * of the board counts plies, so 50 moves of both sides are 100 plies.
      * @param board The board that will be checked.
      * @return True if there have not been any capture of pawn movements for 50 moves.
      */
     public boolean isFiftyMoveDraw(Board board) {
-        final int fiftyCounterMax = 50;
+        final int fiftyCounterMax = 100;
 
         if (board.getFiftyMoveCounter() >= fiftyCounterMax) {
             return true;
@@ -422,22 +279,6 @@ public class BoardScanner
         return squareSelected.contains(square);
     }
 
-    /**
-     * This method adds the previous position into the previousPosition list.
-     */
-    public void addPreviousPosition() {
-        previousPosition.add(new Position(board.convertBoardToFen()));
-    }
-
-    /**
-     * This method retrieves the previous position.
-     * @return The previous posiition.
-     */
-    public Position getPreviousPosition() {
-	int lastIndex = previousPosition.size() - 1;
-	return previousPosition.get(lastIndex);
-    }
-
     /**
      * This method retrieves the en passant square.
      * @return the en passant square.
@@ -477,4 +318,29 @@ public class BoardScanner
     public boolean getCastlingRight(CastlingRight castlingRight) {
         return castlingRightMap.get(castlingRight);
     }
+
+    /**
+     * This method retrieves all of the castling rights as a bitmask. The bit of a castling right is given by
+     * its ordinal.
+     * @return A bitmask of the castling rights.
+     */
+    public int getCastlingRights() {
+	int castlingRights = 0;
+	for (CastlingRight castlingRight : CastlingRight.values()) {
+	    if (getCastlingRight(castlingRight)) {
+		castlingRights |= 1 << castlingRight.ordinal();
+	    }
+	}
+	return castlingRights;
+    }
+
+    /**
+     * This method sets all of the castling rights from a bitmask made by getCastlingRights.
+     * @param castlingRights The bitmask of the castling rights.
+     */
+    public void setCastlingRights(int castlingRights) {
+	for (CastlingRight castlingRight : CastlingRight.values()) {
+	    setCastlingRight(castlingRight, (castlingRights & (1 << castlingRight.ordinal())) != 0);
+	}
+    }
 }
@@ -0,0 +1,110 @@
+package se.liu.chrwa634.main;
+
+import se.liu.chrwa634.pieces.Piece;
+
+/**
+ * This class saves the parts of the board that can not be recreated when a move is taken back. Every time
+ * Board.makeMove is called a BoardState on the undo stack of the board is filled and Board.unmakeMove uses it
+ * to put the board back to the position it was in before the move. The entries of the stack are reused so the
+ * fields are set with the save method instead of the constructor.
+ */
+public class BoardState
+{
+    private int move;
+    private Piece movedPiece;
+    private Piece capturedPiece;
+    private Square capturedSquare;
+    private int castlingRights;
+    private Square enPassantSquare;
+    private int fiftyMoveCounter;
+
+    /**
+     * This method saves the state of the board before a move.
+     * @param move The move encoded with PackedMove.
+     * @param movedPiece The piece that is moved.
+     * @param capturedPiece The piece that is captured or null.
+     * @param capturedSquare The square of the captured piece.
+     * @param castlingRights The castling rights as a bitmask.
+     * @param enPassantSquare The en passant square or null.
+     * @param fiftyMoveCounter The fifty-move counter.
+     */
+    public void save(int move, Piece movedPiece, Piece capturedPiece, Square capturedSquare, int castlingRights,
+		     Square enPassantSquare, int fiftyMoveCounter)
+    {
+	this.move = move;
+	this.movedPiece = movedPiece;
+	this.capturedPiece = capturedPiece;
+	this.capturedSquare = capturedSquare;
+	this.castlingRights = castlingRights;
+	this.enPassantSquare = enPassantSquare;
+	this.fiftyMoveCounter = fiftyMoveCounter;
+    }
+
+    /**
+     * This method removes the references to the pieces and squares so that a reused entry does not keep
+     * old pieces alive.
+     */
+    public void clear() {
+	movedPiece = null;
+	capturedPiece = null;
+	capturedSquare = null;
+	enPassantSquare = null;
+    }
+
+    /**
+     * This method returns the move that was performed.
+     * @return The move encoded with PackedMove.
+     */
+    public int getMove() {
+	return move;
+    }
+
+    /**
+     * This method returns the piece that was moved.
+     * @return The moved piece.
+     */
+    public Piece getMovedPiece() {
+	return movedPiece;
+    }
+
+    /**
+     * This method returns the piece that was captured by the move.
+     * @return The captured piece or null if the move was not a capture.
+     */
+    public Piece getCapturedPiece() {
+	return capturedPiece;
+    }
+
+    /**
+     * This method returns the square that the captured piece was standing on. It is only different from the
+     * destination square of the move when the move was an en passant.
+     * @return The square of the captured piece.
+     */
+    public Square getCapturedSquare() {
+	return capturedSquare;
+    }
+
+    /**
+     * This method returns the castling rights before the move as a bitmask.
+     * @return The castling rights before the move.
+     */
+    public int getCastlingRights() {
+	return castlingRights;
+    }
+
+    /**
+     * This method returns the en passant square before the move.
+     * @return The en passant square or null if there was none.
+     */
+    public Square getEnPassantSquare() {
+	return enPassantSquare;
+    }
+
+    /**
+     * This method returns the value of the fifty-move counter before the move.
+     * @return The fifty-move counter before the move.
+     */
+    public int getFiftyMoveCounter() {
+	return fiftyMoveCounter;
+    }
+}
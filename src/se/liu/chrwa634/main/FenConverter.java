@@ -3,76 +3,51 @@ package se.liu.chrwa634.main;
 import se.liu.chrwa634.pieces.Piece;
 import se.liu.chrwa634.pieces.PieceFactory;
 import se.liu.chrwa634.pieces.PieceType;
+import se.liu.chrwa634.pieces.Side;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
 /**
  * This class has the objective to return the boards FEN annotation and to load the position to a
  * board. The class has a piecefactory so it could create new pieces when loading the position to
- * a board.
+ * a board. The FEN and EPD could be written to a string builder or a byte buffer given by the caller, they are first
+ * written as ASCII into a write buffer that is reused so that writing a position does not create any objects.
  */
 public class FenConverter
 {
     private static final int CHAR_OFFSET = 97;
+    private static final int PIECE_AMOUNT = 12;
+    private static final int MAX_FEN_LENGTH = 100;
+    private static final int MAX_EPD_LENGTH = 120;
+    private static final byte[] PIECE_CHARS = createPieceChars();
+    private static final CastlingRight[] CASTLING_ORDER =
+	    { CastlingRight.WHITE_SHORT, CastlingRight.WHITE_LONG, CastlingRight.BLACK_SHORT, CastlingRight.BLACK_LONG };
     private PieceFactory pieceFactory;
+    private byte[] writeBuffer;
 
 
     public FenConverter() {
         pieceFactory = new PieceFactory();
+        writeBuffer = new byte[MAX_EPD_LENGTH];
     }
 
 
     /**
-     * This method return the Square which was given as a chess notation. A normal
-     * chess notation uses first an alphabetic chracter between A and H which denotes the rank
-     * whilst a number denoting the file. The rank is obtained by subracting the char with a char-offset
-     * which would get our value that we want. The file value is attained by subtracting the size of the
-     * board with the value which was given.
-     * @param move A two char string which represent a square in a chess board.
-     * @param board The board which a square is going to be returned from.
-     * @return The square which was represented by a chess notation.
+     * A help method to create the fen characters of the pieces, the index of a character is the piece index of
+     * BitboardPosition. White pieces are uppercase and black pieces are lowercase.
+     * @return An array with the ASCII fen character of every piece index.
      */
-    private Square getSquareFromNotation(String move, Board board) {
-	int file = (int)move.charAt(0) - CHAR_OFFSET;
-	int rank = Board.getBoardSize() - Character.getNumericValue(move.charAt(1));
-	return board.getSquare(file, rank);
-    }
-
-    /**
-     * This method returns the castling notation of a give position. It does this by getting the different
-     * colors castling rights through the object board. If none are true that it woud write a - representing
-     * both players does not have castling-rights.
-     * @param board The board to get the different castling rights.
-     * @return A string which is the castling notation of the given position.
-     */
-    private String getCastlingNotation(Board board) {
-	StringBuilder castlingNotation = new StringBuilder();
-
-	for (CastlingRight castlingRight : CastlingRight.values()) {
-	    if (board.getCastlingRight(castlingRight)) {
-		castlingNotation.append(castlingRight.getFen());
-	    }
+    private static byte[] createPieceChars() {
+	byte[] pieceChars = new byte[PIECE_AMOUNT];
+	for (PieceType pieceType : PieceType.values()) {
+	    char fenChar = pieceType.getFen();
+	    pieceChars[BitboardPosition.getPieceIndex(pieceType, BitboardPosition.WHITE)] = (byte) Character.toUpperCase(fenChar);
+	    pieceChars[BitboardPosition.getPieceIndex(pieceType, BitboardPosition.BLACK)] = (byte) fenChar;
 	}
-	if (castlingNotation.isEmpty()) {
-	    castlingNotation.append('-');
-	}
-
-	return castlingNotation.toString();
+	return pieceChars;
     }
 
-    /**
-     * A help method to add a piece from a square into the fen String.
-     * @param fen a stringbuilder currently use to build the FEN String.
-     * @param square The square which is occupied by a piece.
-     */
-    private void addSquareToFen(StringBuilder fen, Square square) {
-	Piece piece = square.getPiece();
-	fen.append(piece.getFenChar());
-    }
-
-    public Piece getPiece(PieceType pieceType, Color color) {
+    public Piece getPiece(PieceType pieceType, Side color) {
         return pieceFactory.getPiece(pieceType, color);
     }
     /**
@@ -83,273 +58,484 @@ public class FenConverter
      * @return The chess piece which the given character was associating.
      */
     public Piece getFenPiece(char character) {
-	Color color = Character.isUpperCase(character) ? Color.WHITE : Color.BLACK;
+	Side color = Character.isUpperCase(character) ? Side.WHITE : Side.BLACK;
 	PieceType pieceType = PieceType.getPieceTypeFromChar(character);
 	return getPiece(pieceType, color);
     }
 
     /**
-     * This function convert and returns a FEN string of the board. This is done by first taking a rank
-     * from the board and afterwords going through every single square in that rank.
-     * If the square is not currently occupied by a piece than increase the variable emptySquares.
-     * The unoccupiedSquares variable will be used for counting the amount of unoccupied squares between pieces or
-     * from the edge of the board to a piece.
-     *
-     * If we find a piece then add the number of emptySquares to the String if it is not 0 and afterwards add
-     * the piece fen notation. At the end of a rank loop check, if the emptySquares is not 0 then add it to the string and
-     * add a / which represents a new rank.
-     *
-     * after that we add the castlingRights to the fen strings by looking up the different castling rights through board.
-     * after that we convert our StringBuilder to a string and return it.
+     * This function convert and returns a FEN string of the board.
      * @param board The board which will be converted as a FEN string.
      * There will not be any changes to the given board.
      * @return The FEN string of the board.
      */
     public String convertBoardToFen(Board board) {
-	int unoccupiedSquares = 0;
+	StringBuilder fen = new StringBuilder(MAX_FEN_LENGTH);
+	appendFen(board, fen);
+	return fen.toString();
+    }
+
+    /**
+     * This method appends the full FEN of the board to a string builder. The builder could be reused between boards
+     * so that writing a position does not create any objects.
+     * @param board The board which will be written.
+     * @param fen The string builder that the FEN is appended to.
+     */
+    public void appendFen(Board board, StringBuilder fen) {
+	appendBuffer(fen, writeFen(board));
+    }
+
+    /**
+     * This method writes the full FEN of the board as ASCII bytes into a byte buffer, for example a buffer that is
+     * written to a file channel.
+     * @param board The board which will be written.
+     * @param buffer The buffer that the FEN is put into.
+     */
+    public void writeFen(Board board, ByteBuffer buffer) {
+	buffer.put(writeBuffer, 0, writeFen(board));
+    }
+
+    /**
+     * This method appends the EPD of the board to a string builder. An EPD has the first four fields of a FEN followed
+     * by operations, the counters of the FEN are written as the hmvc and fmvn operations. More operations could be added
+     * with appendEpdOperation.
+     * @param board The board which will be written.
+     * @param epd The string builder that the EPD is appended to.
+     */
+    public void appendEpd(Board board, StringBuilder epd) {
+	appendBuffer(epd, writeEpd(board));
+    }
+
+    /**
+     * This method writes the EPD of the board as ASCII bytes into a byte buffer.
+     * @param board The board which will be written.
+     * @param buffer The buffer that the EPD is put into.
+     */
+    public void writeEpd(Board board, ByteBuffer buffer) {
+	buffer.put(writeBuffer, 0, writeEpd(board));
+    }
+
+    /**
+     * This method appends an EPD operation with a number operand, for example " acd 12;".
+     * @param epd The string builder that the operation is appended to.
+     * @param opcode The opcode of the operation.
+     * @param operand The operand of the operation.
+     */
+    public static void appendEpdOperation(StringBuilder epd, String opcode, long operand) {
+	epd.append(' ').append(opcode).append(' ').append(operand).append(';');
+    }
+
+    /**
+     * This method appends an EPD operation with a string operand, for example " id \"position 1\";".
+     * @param epd The string builder that the operation is appended to.
+     * @param opcode The opcode of the operation.
+     * @param operand The operand of the operation, it is written inside quotes.
+     */
+    public static void appendEpdOperation(StringBuilder epd, String opcode, CharSequence operand) {
+	epd.append(' ').append(opcode).append(" \"").append(operand).append("\";");
+    }
+
+    /**
+     * This method writes the full FEN of the board into the write buffer.
+     * @param board The board which will be written.
+     * @return The length of the FEN.
+     */
+    private int writeFen(Board board) {
+	int index = writeFields(board);
+	writeBuffer[index++] = ' ';
+	index = writeNumber(board.getFiftyMoveCounter(), index);
+	writeBuffer[index++] = ' ';
+	return writeNumber(board.getFullMoveNumber(), index);
+    }
+
+    /**
+     * This method writes the EPD of the board into the write buffer.
+     * @param board The board which will be written.
+     * @return The length of the EPD.
+     */
+    private int writeEpd(Board board) {
+	int index = writeFields(board);
+	index = writeText(" hmvc ", index);
+	index = writeNumber(board.getFiftyMoveCounter(), index);
+	index = writeText("; fmvn ", index);
+	index = writeNumber(board.getFullMoveNumber(), index);
+	writeBuffer[index++] = ';';
+	return index;
+    }
+
+    /**
+     * This method writes the first four fields of a FEN which are the same in an EPD: the piece placement, the
+     * active player, the castling rights and the en passant square. The pieces are read from the bitboards of the
+     * board, one rank at a time. The empty squares between pieces are counted and written as a number.
+     * @param board The board which will be written.
+     * @return The index in the write buffer after the fields.
+     */
+    private int writeFields(Board board) {
+	BitboardPosition bitboards = board.getBitboards();
 	int boardSize = Board.getBoardSize();
-	StringBuilder fen = new StringBuilder();
+	byte[] buffer = writeBuffer;
+	int index = 0;
 
 	for (int rank = 0; rank < boardSize; rank++) {
+	    int unoccupiedSquares = 0;
 	    for (int file = 0; file < boardSize; file++) {
-		if (board.isOccupied(file, rank)) {
+		int pieceIndex = bitboards.getPieceAt(BitboardPosition.getSquareIndex(file, rank));
+		if (pieceIndex == BitboardPosition.NO_PIECE) {
+		    unoccupiedSquares++;
+		} else {
 		    if (unoccupiedSquares != 0) {
-			fen.append(unoccupiedSquares);
+			buffer[index++] = (byte) ('0' + unoccupiedSquares);
 			unoccupiedSquares = 0;
 		    }
-		    Square currentSquare = board.getSquare(file, rank);
-		    addSquareToFen(fen, currentSquare);
-		} else {
-		    unoccupiedSquares += 1;
+		    buffer[index++] = PIECE_CHARS[pieceIndex];
 		}
 	    }
 	    if (unoccupiedSquares != 0) {
-		fen.append(unoccupiedSquares);
-		unoccupiedSquares = 0;
+		buffer[index++] = (byte) ('0' + unoccupiedSquares);
+	    }
+	    if (rank != boardSize - 1) {
+		buffer[index++] = '/';
 	    }
-	    fen.append('/');
 	}
 
-	//Remove the last slash and add a space instead.
-	int fenLength = fen.length();
-	fen.setCharAt(fenLength - 1, ' ');
-
-	fen.append(getActivePlayerNotation(board));
-
-	//Adding castlingnotations
-	fen.append(' ');
-	fen.append(getCastlingNotation(board));
-	fen.append(' ');
+	buffer[index++] = ' ';
+	buffer[index++] = (byte) (board.getIsWhiteTurn() ? 'w' : 'b');
 
-	fen.append(getEnPassantNotation(board));
-	fen.append(' ');
-
-	fen.append(getFiftyMoveCounterNotation(board));
-	fen.append(' ');
-
-	return fen.toString();
-    }
+	buffer[index++] = ' ';
+	int castlingRights = board.getCastlingRights();
+	if (castlingRights == 0) {
+	    buffer[index++] = '-';
+	} else {
+	    for (CastlingRight castlingRight : CASTLING_ORDER) {
+		if ((castlingRights & (1 << castlingRight.ordinal())) != 0) {
+		    buffer[index++] = (byte) castlingRight.getFen();
+		}
+	    }
+	}
 
-    public String getEnPassantNotation(Board board) {
-	List<Character> files = getFileList();
+	buffer[index++] = ' ';
 	Square enPassantSquare = board.getEnPassantSquare();
-
-	if (!board.doesEnPassantSquareExist()) {
-	    return "-";
+	if (enPassantSquare == null) {
+	    buffer[index++] = '-';
+	} else {
+	    buffer[index++] = (byte) (CHAR_OFFSET + enPassantSquare.getFile());
+	    buffer[index++] = (byte) ('0' + boardSize - enPassantSquare.getRank());
 	}
-
-	int squareFile = enPassantSquare.getFile();
-	int squareRank = enPassantSquare.getRank();
-
-	String fenAnnotation = files.get(squareFile) + Integer.toString(squareRank);
-	return fenAnnotation;
+	return index;
     }
 
-    private char getActivePlayerNotation(Board board) {
-	if (board.getIsWhiteTurn()) {
-	    return 'w';
-	} else {
-	    return 'b';
+    /**
+     * This method writes a number that is not negative into the write buffer without creating a string.
+     * @param number The number to write.
+     * @param index The index in the write buffer where the number is written.
+     * @return The index after the number.
+     */
+    private int writeNumber(int number, int index) {
+	int divisor = 1;
+	while (number / divisor >= 10) {
+	    divisor *= 10;
 	}
+	while (divisor > 0) {
+	    writeBuffer[index++] = (byte) ('0' + number / divisor % 10);
+	    divisor /= 10;
+	}
+	return index;
     }
 
-    private String getFiftyMoveCounterNotation(Board board) {
-        return Integer.toString(board.getFiftyMoveCounter());
+    /**
+     * This method writes a constant text into the write buffer.
+     * @param text The text to write.
+     * @param index The index in the write buffer where the text is written.
+     * @return The index after the text.
+     */
+    private int writeText(String text, int index) {
+	for (int textIndex = 0; textIndex < text.length(); textIndex++) {
+	    writeBuffer[index++] = (byte) text.charAt(textIndex);
+	}
+	return index;
     }
 
-    private List<Character> getFileList() {
-	List<Character> files = new ArrayList<>();
-	files.add('a');
-	files.add('b');
-	files.add('c');
-	files.add('d');
-	files.add('e');
-	files.add('f');
-	files.add('g');
-	files.add('h');
-	return files;
+    /**
+     * This method appends the first characters of the write buffer to a string builder.
+     * @param builder The string builder.
+     * @param length The amount of characters to append.
+     */
+    private void appendBuffer(StringBuilder builder, int length) {
+	builder.ensureCapacity(builder.length() + length);
+	for (int index = 0; index < length; index++) {
+	    builder.append((char) writeBuffer[index]);
+	}
     }
 
-
     /**
      * This method loads a position into the board by using a position object.
      * @param position The position that wants to be loaded.
      */
     public void loadPosition(Position position, Board board) {
-	StringBuilder fen = new StringBuilder(position.getFen());
-
-	clearBoard(board);
-	loadPiecesToBoard(board, fen);
-	loadActivePlayer(board, fen);
-	loadCastlingRights(board, fen);
-	loadEnPassantSquare(board, fen);
-	loadFiftyMoveCounter(board, fen);
+	loadFen(position.getFen(), board);
     }
 
-    private void clearBoard(Board board) {
-        int boardEndIndex = Board.getBoardSize();
-	for (int rank = 0; rank < boardEndIndex; rank++) {
-	    for (int file = 0; file < boardEndIndex; file++) {
-	        Square square = board.getSquare(file, rank);
-	        if (square.isOccupied()) {
-		    board.removePiece(square);
-		}
-	    }
+    /**
+     * This method loads a FEN string into the board. The string is read once from the beginning to the end with an
+     * index and every field is put straight into the board, so no other strings are created. The halfmove clock and the
+     * fullmove number could be left out, then they are set to 0 and 1. If the string is malformed a FenParseException
+     * with the offset of the wrong character is thrown, the board is then left cleared or partly loaded.
+     * @param fen The FEN string that will be loaded.
+     * @param board The board that the position is loaded into.
+     */
+    public void loadFen(CharSequence fen, Board board) {
+	board.clearPieces();
+	int index = loadPiecesToBoard(board, fen, 0);
+	index = skipSpace(fen, index);
+	index = loadActivePlayer(board, fen, index);
+	index = skipSpace(fen, index);
+	index = loadCastlingRights(board, fen, index);
+	index = skipSpace(fen, index);
+	index = loadEnPassantSquare(board, fen, index);
+
+	board.setFiftyMoveCounter(0);
+	board.setFullMoveNumber(1);
+	//The counters are optional, so the whitespace before them could also be the trailing whitespace of the string.
+	if (index < fen.length()) {
+	    index = skipSpace(fen, index);
+	}
+	if (index < fen.length()) {
+	    int fiftyMoveCounterIndex = index;
+	    index = skipNumber(fen, index);
+	    board.setFiftyMoveCounter(parseNumber(fen, fiftyMoveCounterIndex, index));
+	}
+	if (index < fen.length()) {
+	    index = skipSpace(fen, index);
+	}
+	if (index < fen.length()) {
+	    int fullMoveNumberIndex = index;
+	    index = skipNumber(fen, index);
+	    board.setFullMoveNumber(parseNumber(fen, fullMoveNumberIndex, index));
+	}
+	//Trailing whitespace is allowed but nothing else.
+	while (index < fen.length() && Character.isWhitespace(fen.charAt(index))) {
+	    index++;
+	}
+	if (index != fen.length()) {
+	    throw new FenParseException("Unexpected character '" + fen.charAt(index) + "'", fen, index);
 	}
     }
+
     /**
-     * This is a help method for the load position method that loads the pieces to the board of the given stringbuilder fen.
-     * It works by iterating over the char until it gets to a space. If the character is space than it has loaded
-     * all of the pieces into the board.
-     * @param fen A stringbuilder of a given fen string.
+     * This is a help method for the load position method that loads the pieces to the board. It works by iterating
+     * over the characters until it gets to a space. Every rank must have exactly eight squares and there must be
+     * exactly eight ranks.
+     * @param board The board that the pieces are put on.
+     * @param fen The FEN string to load from.
+     * @param index The index of the first character of the piece placement.
+     * @return The index of the character after the piece placement.
      */
-    private void loadPiecesToBoard(Board board, StringBuilder fen) {
+    private int loadPiecesToBoard(Board board, CharSequence fen, int index) {
+	int boardSize = Board.getBoardSize();
 	int file = 0;
 	int rank = 0;
-	String pieceCharacters = "PpNnBbRrQqKk";
 
-	while(true) {
-	    char currentChar = getNextChar(fen);
+	while (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+	    char currentChar = fen.charAt(index);
 	    if (currentChar == '/') {
+		if (file != boardSize || rank == boardSize - 1) {
+		    throw new FenParseException("Rank " + (boardSize - rank) + " does not have eight squares", fen, index);
+		}
 		file = 0;
-		rank  += 1;
-	    } else if (pieceCharacters.indexOf(currentChar) != -1) {
-	        Piece piece = getFenPiece(currentChar);
-	        Square square = board.getSquare(file, rank);
-		board.putNewPiece(piece, square);
-
+		rank += 1;
+	    } else if (currentChar >= '1' && currentChar <= '8') {
+		//hop the amount of squares because they are supposed to be empty
+		file += currentChar - '0';
+		if (file > boardSize) {
+		    throw new FenParseException("Rank " + (boardSize - rank) + " has too many squares", fen, index);
+		}
+	    } else if (isPieceChar(currentChar)) {
+		if (file >= boardSize) {
+		    throw new FenParseException("Rank " + (boardSize - rank) + " has too many squares", fen, index);
+		}
+		Piece piece = getFenPiece(currentChar);
+		board.putNewPiece(piece, board.getSquare(file, rank));
 		file += 1;
-	    } else if (currentChar == ' ') {
-		//stop adding more characters
-		break;
 	    } else {
-		//hop the amount of squares because they are supposed to be empty
-		file += Character.getNumericValue(currentChar);
+		throw new FenParseException("Unexpected character '" + currentChar + "' in the piece placement", fen, index);
 	    }
+	    index++;
+	}
+	if (file != boardSize || rank != boardSize - 1) {
+	    throw new FenParseException("The piece placement does not have eight full ranks", fen, index);
 	}
+	return index;
     }
 
     /**
      * This method loads the isWhiteTurn flag by looking if the given fen char was a w or b.
+     * @param board The board to load to.
      * @param fen The fen string to load from.
+     * @param index The index of the active player character.
+     * @return The index of the character after the active player.
      */
-    private void loadActivePlayer(Board board, StringBuilder fen) {
-	char currentChar = getNextChar(fen);
+    private int loadActivePlayer(Board board, CharSequence fen, int index) {
+	char currentChar = charAt(fen, index);
 	if (currentChar == 'w') {
 	    board.setIsWhiteTurn(true);
 	}
-	else {
+	else if (currentChar == 'b') {
 	    board.setIsWhiteTurn(false);
 	}
-	//removing the space after the w
-	fen.deleteCharAt(0);
+	else {
+	    throw new FenParseException("Expected 'w' or 'b' for the active player", fen, index);
+	}
+	return index + 1;
     }
 
     /**
-     * This method load the castling rights flag by looking at the given fen char. This is done by first
-     * setting all of the flags to false and afterwards setting the ones that should to true.
+     * This method load the castling rights by looking at the given fen chars. The rights are collected in a bitmask
+     * and set on the board at once, a - means that no player could castle.
+     * @param board The board to load to.
      * @param fen The fen string to load from.
+     * @param index The index of the first castling character.
+     * @return The index of the character after the castling rights.
      */
-    private void loadCastlingRights(Board board, StringBuilder fen) {
-	//Set all the castlingrights to false.
-	for (CastlingRight castlingRight : CastlingRight.values()) {
-	    board.setCastlingRight(castlingRight, false);
+    private int loadCastlingRights(Board board, CharSequence fen, int index) {
+	int castlingRights = 0;
+	if (charAt(fen, index) == '-') {
+	    board.setCastlingRights(castlingRights);
+	    return index + 1;
 	}
 
-	while(true) {
-	    char currentChar = getNextChar(fen);
-
-	    if (currentChar == '-') {
-		fen.deleteCharAt(0);
-		break;
-	    } else if (currentChar == ' ') {
-		break;
-	    } else {
-		CastlingRight castlingRight;
-		switch (currentChar) {
-		    case 'K':
-			castlingRight = CastlingRight.WHITE_SHORT;
-			break;
-		    case 'Q':
-			castlingRight = CastlingRight.WHITE_LONG;
-			break;
-		    case 'k':
-			castlingRight = CastlingRight.BLACK_SHORT;
-			break;
-		    default:
-			castlingRight = CastlingRight.BLACK_LONG;
-			break;
-		}
-		board.setCastlingRight(castlingRight, true);
+	int startIndex = index;
+	while (index < fen.length() && !Character.isWhitespace(fen.charAt(index))) {
+	    CastlingRight castlingRight = getCastlingRight(fen.charAt(index));
+	    if (castlingRight == null) {
+		throw new FenParseException("Unexpected castling character '" + fen.charAt(index) + "'", fen, index);
 	    }
+	    castlingRights |= 1 << castlingRight.ordinal();
+	    index++;
 	}
+	if (index == startIndex) {
+	    throw new FenParseException("Expected the castling rights", fen, index);
+	}
+	board.setCastlingRights(castlingRights);
+	return index;
     }
 
     /**
-     * This method load the en passant square from a given fen.
+     * This method load the en passant square from a given fen. The square must be on the third or the sixth rank.
+     * @param board The board to load to.
      * @param fen The fen in which to load from.
+     * @param index The index of the first en passant character.
+     * @return The index of the character after the en passant square.
      */
-    private void loadEnPassantSquare(Board board, StringBuilder fen) {
-	char currentChar = getNextChar(fen);
-	if (currentChar == '-') {
+    private int loadEnPassantSquare(Board board, CharSequence fen, int index) {
+	char fileChar = charAt(fen, index);
+	if (fileChar == '-') {
 	    board.resetEnPassantSquare();
+	    return index + 1;
 	}
-	else {
-	    String moveCheck = String.valueOf(currentChar) + getNextChar(fen);
-	    board.setEnPassantSquare(getSquareFromNotation(moveCheck, board));
+	if (fileChar < 'a' || fileChar > 'h') {
+	    throw new FenParseException("Expected '-' or a file for the en passant square", fen, index);
 	}
+	char rankChar = charAt(fen, index + 1);
+	if (rankChar != '3' && rankChar != '6') {
+	    throw new FenParseException("Expected rank 3 or 6 for the en passant square", fen, index + 1);
+	}
+	int file = fileChar - CHAR_OFFSET;
+	int rank = Board.getBoardSize() - (rankChar - '0');
+	board.setEnPassantSquare(board.getSquare(file, rank));
+	return index + 2;
     }
 
     /**
-     * This method loads the fifty move counter from a given fen.
-     * @param board The board in which to load the counter
-     * @param fen The fen to load.
+     * This method returns the castling right of a fen character.
+     * @param character The character of the castling right.
+     * @return The castling right or null if the character is not a castling right.
      */
-    private void loadFiftyMoveCounter(Board board, StringBuilder fen){
-	fen.deleteCharAt(0);
-        char nextChar = fen.charAt(1);
-        String number;
-        if (nextChar != ' ') {
-	    final int getTwoNumbers = 2;
-	    number = fen.substring(0, getTwoNumbers);
-            fen.deleteCharAt(0);
-            fen.deleteCharAt(1);
-	} else {
-	    final int getOneNumber = 1;
-	    number = fen.substring(0, getOneNumber);
-            fen.deleteCharAt(0);
+    private CastlingRight getCastlingRight(char character) {
+	for (CastlingRight castlingRight : CastlingRight.values()) {
+	    if (castlingRight.getFen() == character) {
+		return castlingRight;
+	    }
 	}
-	board.setFiftyMoveCounter(Integer.valueOf(number));
+	return null;
     }
 
     /**
-     * This is a method that returns the next char of a given stringbuilder objekt.
-     * @param fen the fen
-     * @return the next character in a fen.
+     * This method checks if a character is the fen character of a piece.
+     * @param character The character to check.
+     * @return True if the character represents a piece.
      */
-    private char getNextChar(StringBuilder fen) {
-        char nextChar = fen.charAt(0);
-        fen.deleteCharAt(0);
-        return nextChar;
+    private boolean isPieceChar(char character) {
+	switch (Character.toLowerCase(character)) {
+	    case 'p': case 'n': case 'b': case 'r': case 'q': case 'k':
+		return true;
+	    default:
+		return false;
+	}
+    }
+
+    /**
+     * This method skips the whitespace between two fields of a fen. More than one whitespace character is allowed, and
+     * any whitespace counts, so a line that ends with a line break or that is separated by tabs is read too.
+     * @param fen The fen string.
+     * @param index The index of the whitespace.
+     * @return The index of the first character of the next field, or the length of the string if it ends there.
+     */
+    private int skipSpace(CharSequence fen, int index) {
+	if (!Character.isWhitespace(charAt(fen, index))) {
+	    throw new FenParseException("Expected a space", fen, index);
+	}
+	while (index < fen.length() && Character.isWhitespace(fen.charAt(index))) {
+	    index++;
+	}
+	return index;
+    }
+
+    /**
+     * This method skips the digits of a number.
+     * @param fen The fen string.
+     * @param index The index of the first digit.
+     * @return The index of the character after the number.
+     */
+    private int skipNumber(CharSequence fen, int index) {
+	int startIndex = index;
+	while (index < fen.length() && fen.charAt(index) >= '0' && fen.charAt(index) <= '9') {
+	    index++;
+	}
+	if (index == startIndex) {
+	    throw new FenParseException("Expected a number", fen, index);
+	}
+	return index;
+    }
+
+    /**
+     * This method reads a number from the fen without creating a substring.
+     * @param fen The fen string.
+     * @param startIndex The index of the first digit.
+     * @param endIndex The index after the last digit.
+     * @return The number.
+     */
+    private int parseNumber(CharSequence fen, int startIndex, int endIndex) {
+	final int maxDigits = 9;
+	if (endIndex - startIndex > maxDigits) {
+	    throw new FenParseException("The number is too large", fen, startIndex);
+	}
+	int number = 0;
+	for (int index = startIndex; index < endIndex; index++) {
+	    number = number * 10 + (fen.charAt(index) - '0');
+	}
+	return number;
+    }
+
+    /**
+     * This method returns the character at an index of the fen and reports a missing field if the fen ends before it.
+     * @param fen The fen string.
+     * @param index The index of the character.
+     * @return The character at the index.
+     */
+    private char charAt(CharSequence fen, int index) {
+	if (index >= fen.length()) {
+	    throw new FenParseException("Unexpected end of the FEN", fen, index);
+	}
+	return fen.charAt(index);
     }
 }
@@ -0,0 +1,25 @@
+package se.liu.chrwa634.main;
+
+/**
+ * This exception is thrown when a FEN string could not be loaded because it is malformed. The exception remembers the
+ * offset of the character where the error was found so that the caller could point out the error in the string.
+ */
+public class FenParseException extends IllegalArgumentException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int errorOffset;
+
+    public FenParseException(String message, CharSequence fen, int errorOffset) {
+        super(message + " at offset " + errorOffset + " in FEN \"" + fen + "\"");
+        this.errorOffset = errorOffset;
+    }
+
+    /**
+     * This method returns the offset of the character where the error was found.
+     * @return The index of the character in the FEN string.
+     */
+    public int getErrorOffset() {
+        return errorOffset;
+    }
+}
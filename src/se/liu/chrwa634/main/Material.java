@@ -0,0 +1,239 @@
+package se.liu.chrwa634.main;
+
+import se.liu.chrwa634.pieces.PieceType;
+
+/**
+ * This class keeps the amount of pieces of every type and color on the board. The board updates the counts every time
+ * a piece is put on or removed from a square, so the material never has to be counted by looking through the pieces.
+ * The bishops are counted by the color of their square as well since two bishops on the same color could not
+ * checkmate.
+ *
+ * The counts are also packed into a material key, which is the same for all positions with the same material. Every
+ * piece type of every color has four bits in the key, and the bishops on light and dark squares have their own bits.
+ * A count larger than fifteen is kept as fifteen in the key. The key could be used to pick rules or evaluations that
+ * depend on the material, like endgames with only a few pieces.
+ */
+public class Material
+{
+    private static final int COLOR_AMOUNT = 2;
+    private static final int PIECE_AMOUNT = 12;
+    private static final int COUNT_BITS = 4;
+    private static final int MAX_KEY_COUNT = (1 << COUNT_BITS) - 1;
+    //Every color has one field for every piece type and one extra field for the bishops on dark squares.
+    private static final int FIELDS_PER_COLOR = PieceType.values().length + 1;
+    private static final int DARK_BISHOP_FIELD = FIELDS_PER_COLOR - 1;
+    //The minor piece counts that decide if a color has insufficient material are limited to this value in the table.
+    private static final int MAX_MINOR_COUNT = 3;
+    private static final boolean[] INSUFFICIENT_MINOR_PIECES = createInsufficientMinorPieces();
+
+    private final int[] pieceCounts = new int[PIECE_AMOUNT];
+    private final int[] darkBishopCounts = new int[COLOR_AMOUNT];
+    private long key = 0L;
+
+    /**
+     * This method adds a piece to the counts.
+     * @param pieceIndex The piece index of the piece.
+     * @param squareIndex The square that the piece is put on.
+     */
+    public void addPiece(int pieceIndex, int squareIndex) {
+	int colorIndex = BitboardPosition.getColorIndex(pieceIndex);
+	int field = getField(pieceIndex, squareIndex);
+	int count = increaseCount(pieceIndex, colorIndex, field);
+	if (count <= MAX_KEY_COUNT) {
+	    key += getKeyUnit(colorIndex, field);
+	}
+    }
+
+    /**
+     * This method removes a piece from the counts.
+     * @param pieceIndex The piece index of the piece.
+     * @param squareIndex The square that the piece is removed from.
+     */
+    public void removePiece(int pieceIndex, int squareIndex) {
+	int colorIndex = BitboardPosition.getColorIndex(pieceIndex);
+	int field = getField(pieceIndex, squareIndex);
+	int count = getFieldCount(pieceIndex, colorIndex, field);
+	if (count <= MAX_KEY_COUNT) {
+	    key -= getKeyUnit(colorIndex, field);
+	}
+	if (field == DARK_BISHOP_FIELD) {
+	    darkBishopCounts[colorIndex]--;
+	}
+	pieceCounts[pieceIndex]--;
+    }
+
+    /**
+     * This method removes all pieces from the counts.
+     */
+    public void clear() {
+	for (int pieceIndex = 0; pieceIndex < PIECE_AMOUNT; pieceIndex++) {
+	    pieceCounts[pieceIndex] = 0;
+	}
+	for (int colorIndex = 0; colorIndex < COLOR_AMOUNT; colorIndex++) {
+	    darkBishopCounts[colorIndex] = 0;
+	}
+	key = 0L;
+    }
+
+    /**
+     * This method returns the amount of pieces of a type and color.
+     * @param pieceType The type of the pieces.
+     * @param colorIndex The color of the pieces.
+     * @return The amount of pieces.
+     */
+    public int getCount(PieceType pieceType, int colorIndex) {
+	return pieceCounts[BitboardPosition.getPieceIndex(pieceType, colorIndex)];
+    }
+
+    /**
+     * This method returns the material key of the pieces on the board.
+     * @return The material key.
+     */
+    public long getKey() {
+	return key;
+    }
+
+    /**
+     * This method reads the amount of pieces of a type and color from a material key. The bishops on both colors of
+     * squares are added together.
+     * @param key A material key.
+     * @param pieceType The type of the pieces.
+     * @param colorIndex The color of the pieces.
+     * @return The amount of pieces, at most fifteen for every color of square.
+     */
+    public static int getCount(long key, PieceType pieceType, int colorIndex) {
+	int count = readField(key, colorIndex, pieceType.ordinal());
+	if (pieceType == PieceType.BISHOP) {
+	    count += readField(key, colorIndex, DARK_BISHOP_FIELD);
+	}
+	return count;
+    }
+
+    /**
+     * This method checks if neither color has enough pieces to checkmate. A color could not checkmate if it has no
+     * pawns, rooks or queens and it has either a single knight or only bishops on the same color of squares. The
+     * decision for the minor pieces is taken from a table that is made when the class is loaded.
+     * @return True if both colors have insufficient material.
+     */
+    public boolean isInsufficientMaterial() {
+	return isInsufficientMaterial(BitboardPosition.WHITE) && isInsufficientMaterial(BitboardPosition.BLACK);
+    }
+
+    /**
+     * This method checks if a color does not have enough pieces to checkmate.
+     * @param colorIndex The color to check.
+     * @return True if the color has insufficient material.
+     */
+    public boolean isInsufficientMaterial(int colorIndex) {
+	if (getCount(PieceType.PAWN, colorIndex) + getCount(PieceType.ROOK, colorIndex) +
+	    getCount(PieceType.QUEEN, colorIndex) > 0) {
+	    return false;
+	}
+	int darkBishops = darkBishopCounts[colorIndex];
+	int lightBishops = getCount(PieceType.BISHOP, colorIndex) - darkBishops;
+	return INSUFFICIENT_MINOR_PIECES[getMinorPieceIndex(getCount(PieceType.KNIGHT, colorIndex), lightBishops, darkBishops)];
+    }
+
+    /**
+     * This method increases the count of a piece.
+     * @param pieceIndex The piece index of the piece.
+     * @param colorIndex The color of the piece.
+     * @param field The field of the piece in the key.
+     * @return The new count of the field.
+     */
+    private int increaseCount(int pieceIndex, int colorIndex, int field) {
+	pieceCounts[pieceIndex]++;
+	if (field == DARK_BISHOP_FIELD) {
+	    darkBishopCounts[colorIndex]++;
+	}
+	return getFieldCount(pieceIndex, colorIndex, field);
+    }
+
+    /**
+     * This method returns the count of the field of a piece, which is the amount of bishops on the same color of
+     * square for a bishop and the amount of pieces of the type for every other piece.
+     * @param pieceIndex The piece index of the piece.
+     * @param colorIndex The color of the piece.
+     * @param field The field of the piece in the key.
+     * @return The count of the field.
+     */
+    private int getFieldCount(int pieceIndex, int colorIndex, int field) {
+	if (field == DARK_BISHOP_FIELD) {
+	    return darkBishopCounts[colorIndex];
+	}
+	if (field == PieceType.BISHOP.ordinal()) {
+	    return pieceCounts[pieceIndex] - darkBishopCounts[colorIndex];
+	}
+	return pieceCounts[pieceIndex];
+    }
+
+    /**
+     * This method returns the field of a piece in the material key. A bishop on a dark square has its own field.
+     * @param pieceIndex The piece index of the piece.
+     * @param squareIndex The square of the piece.
+     * @return The field of the piece.
+     */
+    private static int getField(int pieceIndex, int squareIndex) {
+	PieceType pieceType = BitboardPosition.getPieceType(pieceIndex);
+	boolean isDarkSquare = (BitboardPosition.getRank(squareIndex) + BitboardPosition.getFile(squareIndex)) % 2 != 0;
+	if (pieceType == PieceType.BISHOP && isDarkSquare) {
+	    return DARK_BISHOP_FIELD;
+	}
+	return pieceType.ordinal();
+    }
+
+    /**
+     * This method returns the number that is added to the key for one piece in a field.
+     * @param colorIndex The color of the piece.
+     * @param field The field of the piece.
+     * @return The number that represents one piece.
+     */
+    private static long getKeyUnit(int colorIndex, int field) {
+	return 1L << ((colorIndex * FIELDS_PER_COLOR + field) * COUNT_BITS);
+    }
+
+    /**
+     * This method reads a field of a material key.
+     * @param key The material key.
+     * @param colorIndex The color of the field.
+     * @param field The field.
+     * @return The count in the field.
+     */
+    private static int readField(long key, int colorIndex, int field) {
+	return (int) (key >>> ((colorIndex * FIELDS_PER_COLOR + field) * COUNT_BITS)) & MAX_KEY_COUNT;
+    }
+
+    /**
+     * This method returns the index of some minor pieces in the table of insufficient material.
+     * @param knights The amount of knights.
+     * @param lightBishops The amount of bishops on light squares.
+     * @param darkBishops The amount of bishops on dark squares.
+     * @return The index in the table.
+     */
+    private static int getMinorPieceIndex(int knights, int lightBishops, int darkBishops) {
+	int size = MAX_MINOR_COUNT + 1;
+	return (Math.min(knights, MAX_MINOR_COUNT) * size + Math.min(lightBishops, MAX_MINOR_COUNT)) * size +
+	       Math.min(darkBishops, MAX_MINOR_COUNT);
+    }
+
+    /**
+     * This method creates the table that tells if a color with only a king and minor pieces has insufficient material.
+     * That is the case for a single knight, or for any amount of bishops as long as they are all on the same color of
+     * squares.
+     * @return The table indexed by getMinorPieceIndex.
+     */
+    private static boolean[] createInsufficientMinorPieces() {
+	int size = MAX_MINOR_COUNT + 1;
+	boolean[] table = new boolean[size * size * size];
+	for (int knights = 0; knights <= MAX_MINOR_COUNT; knights++) {
+	    for (int lightBishops = 0; lightBishops <= MAX_MINOR_COUNT; lightBishops++) {
+		for (int darkBishops = 0; darkBishops <= MAX_MINOR_COUNT; darkBishops++) {
+		    boolean onlySameColorBishops = knights == 0 && (lightBishops == 0 || darkBishops == 0);
+		    boolean singleKnight = knights == 1 && lightBishops == 0 && darkBishops == 0;
+		    table[getMinorPieceIndex(knights, lightBishops, darkBishops)] = onlySameColorBishops || singleKnight;
+		}
+	    }
+	}
+	return table;
+    }
+}
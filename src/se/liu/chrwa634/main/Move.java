@@ -1,8 +1,11 @@
 package se.liu.chrwa634.main;
 
+import se.liu.chrwa634.pieces.PieceType;
+
 /**
  * This class represents a move. It holds information about the starting square, the destination square,
- * the moved piece and if it is a capture move.
+ * the moved piece and if it is a capture move. If the move is a pawn promotion it also holds the piece type that
+ * the pawn is promoted to.
  */
 public class Move
 {
@@ -11,12 +14,24 @@ public class Move
     private int destinationSquareFile;
     private int destinationSquareRank;
     private boolean captureMove;
+    private PieceType promotionPieceType;
 
     public Move(Square startingSquare, Square destinationSquare) {
+        this(startingSquare, destinationSquare, null);
+    }
+
+    /**
+     * A constructor for a pawn move to the last rank.
+     * @param startingSquare The starting square.
+     * @param destinationSquare The destination square.
+     * @param promotionPieceType The piece type that the pawn is promoted to or null if it is not a promotion.
+     */
+    public Move(Square startingSquare, Square destinationSquare, PieceType promotionPieceType) {
         startingSquareFile = startingSquare.getFile();
         startingSquareRank = startingSquare.getRank();
         destinationSquareFile = destinationSquare.getFile();
         destinationSquareRank = destinationSquare.getRank();
+        this.promotionPieceType = promotionPieceType;
 
         setCaptureMove(destinationSquare);
     }
@@ -63,6 +78,22 @@ public class Move
         return destinationSquareFile;
     }
 
+    /**
+     * This method retrieves the piece type that a pawn is promoted to.
+     * @return The promotion piece type or null if the move is not a promotion.
+     */
+    public PieceType getPromotionPieceType() {
+        return promotionPieceType;
+    }
+
+    /**
+     * This method returns if the move is a pawn promotion.
+     * @return true if it is a promotion.
+     */
+    public boolean isPromotion() {
+        return promotionPieceType != null;
+    }
+
     /**
      * This method set if the move is a capture move.
      * @param square The destination Square.
@@ -0,0 +1,827 @@
+package se.liu.chrwa634.main;
+
+import se.liu.chrwa634.pieces.PieceType;
+
+/**
+ * This class generates the legal moves of a position without performing any of them on the board. Before the moves
+ * are generated the class computes the pieces that are giving check, the pieces that are pinned to the king and the
+ * squares that the king can not move to. With these masks every generated move is legal so no move has to be tested
+ * by performing it on the board.
+ *
+ * The generator works on the bitboards of the board and uses the tables in AttackTables. The moves are encoded with
+ * PackedMove and added to a MoveList given by the caller so that the generator does not create any objects. When only
+ * the amount of moves is needed, or if there is any move at all, countLegalMoves and hasAnyLegalMove count the
+ * destination squares of the masks without encoding any move. The search generates the captures and the quiet moves
+ * separately with generateLegalCaptures and generateLegalQuiets, so that the quiet moves are only generated if no
+ * capture causes a cutoff.
+ */
+public class MoveGenerator
+{
+    private static final PieceType[] PROMOTION_PIECE_TYPES = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT };
+    private static final long ALL_SQUARES = -1L;
+    private static final int SQUARE_AMOUNT = 64;
+    private static final int RANK_OFFSET = 8;
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = 0x8080808080808080L;
+    private static final long WHITE_PROMOTION_RANK = 0x00000000000000FFL;
+    private static final long BLACK_PROMOTION_RANK = 0xFF00000000000000L;
+    //The ranks that a pawn reaches with the first step of a double push.
+    private static final long WHITE_DOUBLE_PUSH_RANK = 0x0000FF0000000000L;
+    private static final long BLACK_DOUBLE_PUSH_RANK = 0x0000000000FF0000L;
+
+    private final Board board;
+    private final long[] pinRays = new long[SQUARE_AMOUNT];
+
+    public MoveGenerator(Board board) {
+	this.board = board;
+    }
+
+    /**
+     * This method generates all of the legal moves of a color.
+     * @param colorIndex The color to generate the moves for.
+     * @param moves The list that the moves are added to.
+     */
+    public void generateLegalMoves(int colorIndex, MoveList moves) {
+	generateLegalMoves(colorIndex, ALL_SQUARES, moves);
+    }
+
+    /**
+     * This method generates the legal moves of the pieces of a color that are standing on the given squares.
+     * @param colorIndex The color to generate the moves for.
+     * @param fromSquares A bitboard of the squares that the moves should start from.
+     * @param moves The list that the moves are added to.
+     */
+    public void generateLegalMoves(int colorIndex, long fromSquares, MoveList moves) {
+	generateLegalMoves(colorIndex, fromSquares, true, true, moves);
+    }
+
+    /**
+     * This method generates the legal captures and promotions of a color, including the en passant captures and the
+     * promotions that do not capture anything. These are the moves that MoveOrdering does not count as quiet, and they
+     * are generated on their own so that the search does not have to generate the quiet moves of a node that is cut
+     * off by a capture.
+     * @param colorIndex The color to generate the moves for.
+     * @param moves The list that the moves are added to.
+     */
+    public void generateLegalCaptures(int colorIndex, MoveList moves) {
+	generateLegalMoves(colorIndex, ALL_SQUARES, true, false, moves);
+    }
+
+    /**
+     * This method generates the legal moves of a color that neither capture nor promote, including castling. Together
+     * with generateLegalCaptures these are all of the legal moves, and no move is generated by both.
+     * @param colorIndex The color to generate the moves for.
+     * @param moves The list that the moves are added to.
+     */
+    public void generateLegalQuiets(int colorIndex, MoveList moves) {
+	generateLegalMoves(colorIndex, ALL_SQUARES, false, true, moves);
+    }
+
+    /**
+     * This method generates the legal moves of the pieces on the given squares, either all of them or only the
+     * captures and promotions or only the quiet moves.
+     * @param colorIndex The color to generate the moves for.
+     * @param fromSquares A bitboard of the squares that the moves should start from.
+     * @param captures True if the captures and the promotions should be generated.
+     * @param quiets True if the moves that neither capture nor promote should be generated.
+     * @param moves The list that the moves are added to.
+     */
+    private void generateLegalMoves(int colorIndex, long fromSquares, boolean captures, boolean quiets, MoveList moves) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	long friendly = position.getOccupancy(colorIndex);
+	long occupied = position.getOccupancy();
+	// The pieces other than the pawns capture on the enemy squares and move quietly to the empty squares.
+	long kindMask = (captures ? position.getOccupancy(enemyIndex) : 0L) | (quiets ? ~occupied : 0L);
+	long kingBitboard = position.getPieces(PieceType.KING, colorIndex);
+	if (kingBitboard == 0) {
+	    return;
+	}
+	int kingSquare = Long.numberOfTrailingZeros(kingBitboard);
+
+	// The king can not move to an attacked square. The king is removed so that it can not hide behind itself.
+	long kingDanger = getAttackedSquares(enemyIndex, occupied & ~kingBitboard);
+	if ((fromSquares & kingBitboard) != 0) {
+	    addMoves(moves, kingSquare, AttackTables.getKingAttacks(kingSquare) & ~friendly & ~kingDanger & kindMask);
+	}
+
+	long checkers = getAttackers(kingSquare, enemyIndex, occupied);
+	int checkerAmount = Long.bitCount(checkers);
+	if (checkerAmount > 1) {
+	    // In a double check only the king could move.
+	    return;
+	}
+
+	// The squares that a piece has to move to, to stop a check. That is capturing the checker or blocking it.
+	long checkMask = getCheckMask(kingSquare, checkers);
+
+	long pinned = getPinnedPieces(kingSquare, colorIndex);
+	long targets = ~friendly & checkMask & kindMask;
+
+	addPawnMoves(moves, colorIndex, kingSquare, fromSquares, checkMask, checkers, pinned, captures, quiets);
+
+	long knights = position.getPieces(PieceType.KNIGHT, colorIndex) & ~pinned & fromSquares;
+	while (knights != 0) {
+	    int from = Long.numberOfTrailingZeros(knights);
+	    knights &= knights - 1;
+	    addMoves(moves, from, AttackTables.getKnightAttacks(from) & targets);
+	}
+
+	long diagonalSliders = (position.getPieces(PieceType.BISHOP, colorIndex) | position.getPieces(PieceType.QUEEN, colorIndex)) & fromSquares;
+	while (diagonalSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(diagonalSliders);
+	    diagonalSliders &= diagonalSliders - 1;
+	    addMoves(moves, from, AttackTables.getBishopAttacks(from, occupied) & targets & getPinMask(from, pinned));
+	}
+
+	long straightSliders = (position.getPieces(PieceType.ROOK, colorIndex) | position.getPieces(PieceType.QUEEN, colorIndex)) & fromSquares;
+	while (straightSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(straightSliders);
+	    straightSliders &= straightSliders - 1;
+	    addMoves(moves, from, AttackTables.getRookAttacks(from, occupied) & targets & getPinMask(from, pinned));
+	}
+
+	if (quiets && checkerAmount == 0 && (fromSquares & kingBitboard) != 0) {
+	    addCastlingMoves(moves, colorIndex, kingSquare, kingDanger);
+	}
+    }
+
+    /**
+     * This method checks if an encoded move could be played in the current position when the own king is not looked
+     * at. The moved piece has to stand on the starting square, the destination has to hold the captured piece, the
+     * path of a sliding piece has to be empty and the rules of the pawns and of castling have to hold. No move is
+     * generated, so a move from the transposition table or a killer move could be tested before anything else is done
+     * in the node. Whether the move leaves the own king in check is tested by isKingSafeAfter.
+     * @param colorIndex The color to move.
+     * @param move The encoded move or PackedMove.NO_MOVE.
+     * @return True if the move is pseudo-legal.
+     */
+    public boolean isPseudoLegal(int colorIndex, int move) {
+	if (move == PackedMove.NO_MOVE) {
+	    return false;
+	}
+	BitboardPosition position = board.getBitboards();
+	int from = PackedMove.getFrom(move);
+	int to = PackedMove.getTo(move);
+	int piece = PackedMove.getPiece(move);
+	if (position.getPieceAt(from) != piece || BitboardPosition.getColorIndex(piece) != colorIndex) {
+	    return false;
+	}
+	PieceType pieceType = BitboardPosition.getPieceType(piece);
+	long toBit = 1L << to;
+	if (PackedMove.isEnPassant(move)) {
+	    return pieceType == PieceType.PAWN && to == getEnPassantIndex() &&
+		   (AttackTables.getPawnAttacks(colorIndex, from) & toBit) != 0;
+	}
+	if (position.getPieceAt(to) != PackedMove.getCapturedPiece(move)) {
+	    return false;
+	}
+	if (PackedMove.isCastling(move)) {
+	    // The squares that the king passes are tested by isKingSafeAfter, here only the rights and the empty
+	    // squares between the king and the rook are tested.
+	    return pieceType == PieceType.KING && (getCastlingTargets(colorIndex, from, 0L) & toBit) != 0;
+	}
+
+	long occupied = position.getOccupancy();
+	switch (pieceType) {
+	    case PAWN:
+		return isPawnMovePseudoLegal(colorIndex, move, from, to);
+	    case KNIGHT:
+		return (AttackTables.getKnightAttacks(from) & toBit) != 0;
+	    case BISHOP:
+		return (AttackTables.getBishopAttacks(from, occupied) & toBit) != 0;
+	    case ROOK:
+		return (AttackTables.getRookAttacks(from, occupied) & toBit) != 0;
+	    case QUEEN:
+		return ((AttackTables.getBishopAttacks(from, occupied) | AttackTables.getRookAttacks(from, occupied)) & toBit) != 0;
+	    default:
+		return (AttackTables.getKingAttacks(from) & toBit) != 0;
+	}
+    }
+
+    /**
+     * This method checks if a pseudo-legal move leaves the own king out of check. Only the attackers of the king after
+     * the move are looked for, so the check and pin masks of the position are not computed. A castling move is legal
+     * if none of the squares from the king to its destination is attacked.
+     * @param colorIndex The color to move.
+     * @param move An encoded move that isPseudoLegal has accepted.
+     * @return True if the king of the color is not attacked after the move.
+     */
+    public boolean isKingSafeAfter(int colorIndex, int move) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	int from = PackedMove.getFrom(move);
+	int to = PackedMove.getTo(move);
+	long occupied = position.getOccupancy();
+	if (PackedMove.isCastling(move)) {
+	    int step = to > from ? 1 : -1;
+	    for (int square = from; square != to + step; square += step) {
+		if (getAttackers(square, enemyIndex, occupied) != 0) {
+		    return false;
+		}
+	    }
+	    return true;
+	}
+
+	long kingBitboard = position.getPieces(PieceType.KING, colorIndex);
+	if (kingBitboard == 0) {
+	    return false;
+	}
+	long toBit = 1L << to;
+	long capturedBit = toBit;
+	if (PackedMove.isEnPassant(move)) {
+	    capturedBit = 1L << BitboardPosition.getSquareIndex(BitboardPosition.getFile(to), BitboardPosition.getRank(from));
+	}
+	long occupiedAfter = (occupied & ~(1L << from) & ~capturedBit) | toBit;
+	int kingSquare = (kingBitboard & (1L << from)) != 0 ? to : Long.numberOfTrailingZeros(kingBitboard);
+	// The captured piece is still in the bitboards of the enemy, so it is removed from the attackers.
+	return (getAttackers(kingSquare, enemyIndex, occupiedAfter) & ~capturedBit) == 0;
+    }
+
+    /**
+     * This method counts the legal moves of a color. The moves are counted from the same masks as in
+     * generateLegalMoves, but the destination squares of every piece are only counted so no move is encoded.
+     * @param colorIndex The color to count the moves for.
+     * @return The amount of legal moves, where every promotion piece counts as a move.
+     */
+    public int countLegalMoves(int colorIndex) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	long friendly = position.getOccupancy(colorIndex);
+	long occupied = position.getOccupancy();
+	long kingBitboard = position.getPieces(PieceType.KING, colorIndex);
+	if (kingBitboard == 0) {
+	    return 0;
+	}
+	int kingSquare = Long.numberOfTrailingZeros(kingBitboard);
+
+	long kingDanger = getAttackedSquares(enemyIndex, occupied & ~kingBitboard);
+	int count = Long.bitCount(AttackTables.getKingAttacks(kingSquare) & ~friendly & ~kingDanger);
+	long checkers = getAttackers(kingSquare, enemyIndex, occupied);
+	int checkerAmount = Long.bitCount(checkers);
+	if (checkerAmount > 1) {
+	    return count;
+	}
+
+	long checkMask = getCheckMask(kingSquare, checkers);
+	long pinned = getPinnedPieces(kingSquare, colorIndex);
+	long targets = ~friendly & checkMask;
+
+	long knights = position.getPieces(PieceType.KNIGHT, colorIndex) & ~pinned;
+	while (knights != 0) {
+	    count += Long.bitCount(AttackTables.getKnightAttacks(Long.numberOfTrailingZeros(knights)) & targets);
+	    knights &= knights - 1;
+	}
+	long queens = position.getPieces(PieceType.QUEEN, colorIndex);
+	long diagonalSliders = position.getPieces(PieceType.BISHOP, colorIndex) | queens;
+	while (diagonalSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(diagonalSliders);
+	    diagonalSliders &= diagonalSliders - 1;
+	    count += Long.bitCount(AttackTables.getBishopAttacks(from, occupied) & targets & getPinMask(from, pinned));
+	}
+	long straightSliders = position.getPieces(PieceType.ROOK, colorIndex) | queens;
+	while (straightSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(straightSliders);
+	    straightSliders &= straightSliders - 1;
+	    count += Long.bitCount(AttackTables.getRookAttacks(from, occupied) & targets & getPinMask(from, pinned));
+	}
+
+	count += countPawnMoves(colorIndex, kingSquare, checkMask, checkers, pinned);
+	if (checkerAmount == 0) {
+	    count += Long.bitCount(getCastlingTargets(colorIndex, kingSquare, kingDanger));
+	}
+	return count;
+    }
+
+    /**
+     * This method checks if a color has a legal move and stops as soon as one is found. The king moves are tried
+     * first, then the captures of all the pieces and last the quiet moves, since when the game is almost over the king
+     * or a capture of the checking piece is most often the move that is left. Castling is never tried since the king
+     * could always step to the square it passes if it could castle.
+     * @param colorIndex The color to look for a move for.
+     * @return True if the color has at least one legal move.
+     */
+    public boolean hasAnyLegalMove(int colorIndex) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	long friendly = position.getOccupancy(colorIndex);
+	long enemy = position.getOccupancy(enemyIndex);
+	long occupied = position.getOccupancy();
+	long kingBitboard = position.getPieces(PieceType.KING, colorIndex);
+	if (kingBitboard == 0) {
+	    return false;
+	}
+	int kingSquare = Long.numberOfTrailingZeros(kingBitboard);
+
+	long kingDanger = getAttackedSquares(enemyIndex, occupied & ~kingBitboard);
+	if ((AttackTables.getKingAttacks(kingSquare) & ~friendly & ~kingDanger) != 0) {
+	    return true;
+	}
+	long checkers = getAttackers(kingSquare, enemyIndex, occupied);
+	if (Long.bitCount(checkers) > 1) {
+	    return false;
+	}
+
+	long checkMask = getCheckMask(kingSquare, checkers);
+	long pinned = getPinnedPieces(kingSquare, colorIndex);
+	return hasPieceMove(colorIndex, enemy & checkMask, pinned) ||
+	       hasPawnMove(colorIndex, kingSquare, checkMask, checkers, pinned, true) ||
+	       hasPieceMove(colorIndex, ~occupied & checkMask, pinned) ||
+	       hasPawnMove(colorIndex, kingSquare, checkMask, checkers, pinned, false);
+    }
+
+    /**
+     * This method checks if a knight, bishop, rook or queen of a color could move to any of the given squares.
+     * @param colorIndex The color of the pieces.
+     * @param targets The squares to look for moves to, they should already be limited by the check mask.
+     * @param pinned The pinned pieces.
+     * @return True if a piece could move to one of the squares.
+     */
+    private boolean hasPieceMove(int colorIndex, long targets, long pinned) {
+	BitboardPosition position = board.getBitboards();
+	long occupied = position.getOccupancy();
+	long knights = position.getPieces(PieceType.KNIGHT, colorIndex) & ~pinned;
+	while (knights != 0) {
+	    if ((AttackTables.getKnightAttacks(Long.numberOfTrailingZeros(knights)) & targets) != 0) {
+		return true;
+	    }
+	    knights &= knights - 1;
+	}
+	long queens = position.getPieces(PieceType.QUEEN, colorIndex);
+	long diagonalSliders = position.getPieces(PieceType.BISHOP, colorIndex) | queens;
+	while (diagonalSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(diagonalSliders);
+	    diagonalSliders &= diagonalSliders - 1;
+	    if ((AttackTables.getBishopAttacks(from, occupied) & targets & getPinMask(from, pinned)) != 0) {
+		return true;
+	    }
+	}
+	long straightSliders = position.getPieces(PieceType.ROOK, colorIndex) | queens;
+	while (straightSliders != 0) {
+	    int from = Long.numberOfTrailingZeros(straightSliders);
+	    straightSliders &= straightSliders - 1;
+	    if ((AttackTables.getRookAttacks(from, occupied) & targets & getPinMask(from, pinned)) != 0) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * This method checks if a pawn of a color has a legal capture, en passant included, or a legal push.
+     * @param colorIndex The color of the pawns.
+     * @param kingSquare The square of the king.
+     * @param checkMask The squares that stops a check.
+     * @param checkers The pieces that are giving check.
+     * @param pinned The pinned pieces.
+     * @param captures True to look for captures, false to look for pushes.
+     * @return True if a pawn has a legal move of the given kind.
+     */
+    private boolean hasPawnMove(int colorIndex, int kingSquare, long checkMask, long checkers, long pinned, boolean captures) {
+	BitboardPosition position = board.getBitboards();
+	long enemy = position.getOccupancy(colorIndex ^ 1);
+	int enPassantTarget = getEnPassantIndex();
+	long pawns = position.getPieces(PieceType.PAWN, colorIndex);
+	while (pawns != 0) {
+	    int from = Long.numberOfTrailingZeros(pawns);
+	    pawns &= pawns - 1;
+	    long allowed = checkMask & getPinMask(from, pinned);
+	    if (!captures) {
+		if (getPawnTargets(colorIndex, from, 0L, allowed) != 0) {
+		    return true;
+		}
+	    } else if ((AttackTables.getPawnAttacks(colorIndex, from) & enemy & allowed) != 0) {
+		return true;
+	    } else if (enPassantTarget != BitboardPosition.NO_PIECE &&
+		       (AttackTables.getPawnAttacks(colorIndex, from) & (1L << enPassantTarget)) != 0 &&
+		       isEnPassantLegal(colorIndex, kingSquare, from, enPassantTarget, checkMask, checkers)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * This method returns the squares that a piece other than the king has to move to when the king is in check, that
+     * is the square of the checking piece and the squares between it and the king.
+     * @param kingSquare The square of the king.
+     * @param checkers The pieces that are giving check, at most one.
+     * @return The squares that stops the check, or all the squares if there is no check.
+     */
+    private long getCheckMask(int kingSquare, long checkers) {
+	if (checkers == 0) {
+	    return ALL_SQUARES;
+	}
+	return checkers | AttackTables.getBetween(kingSquare, Long.numberOfTrailingZeros(checkers));
+    }
+
+    /**
+     * This method returns all of the pieces of a color that attacks a square.
+     * @param square The index of the square.
+     * @param colorIndex The color of the attacking pieces.
+     * @param occupied The occupancy that is used for the sliding pieces.
+     * @return A bitboard of the attacking pieces.
+     */
+    public long getAttackers(int square, int colorIndex, long occupied) {
+	BitboardPosition position = board.getBitboards();
+	long queens = position.getPieces(PieceType.QUEEN, colorIndex);
+	// A pawn of the color attacks the square from the squares that a pawn of the other color would attack.
+	return (AttackTables.getPawnAttacks(colorIndex ^ 1, square) & position.getPieces(PieceType.PAWN, colorIndex)) |
+	       (AttackTables.getKnightAttacks(square) & position.getPieces(PieceType.KNIGHT, colorIndex)) |
+	       (AttackTables.getKingAttacks(square) & position.getPieces(PieceType.KING, colorIndex)) |
+	       (AttackTables.getBishopAttacks(square, occupied) & (position.getPieces(PieceType.BISHOP, colorIndex) | queens)) |
+	       (AttackTables.getRookAttacks(square, occupied) & (position.getPieces(PieceType.ROOK, colorIndex) | queens));
+    }
+
+    /**
+     * This method returns all of the squares that a color attacks.
+     * @param colorIndex The attacking color.
+     * @param occupied The occupancy that is used for the sliding pieces.
+     * @return A bitboard of the attacked squares.
+     */
+    private long getAttackedSquares(int colorIndex, long occupied) {
+	BitboardPosition position = board.getBitboards();
+	long attacked = 0L;
+
+	long pawns = position.getPieces(PieceType.PAWN, colorIndex);
+	while (pawns != 0) {
+	    attacked |= AttackTables.getPawnAttacks(colorIndex, Long.numberOfTrailingZeros(pawns));
+	    pawns &= pawns - 1;
+	}
+	long knights = position.getPieces(PieceType.KNIGHT, colorIndex);
+	while (knights != 0) {
+	    attacked |= AttackTables.getKnightAttacks(Long.numberOfTrailingZeros(knights));
+	    knights &= knights - 1;
+	}
+	long queens = position.getPieces(PieceType.QUEEN, colorIndex);
+	long diagonalSliders = position.getPieces(PieceType.BISHOP, colorIndex) | queens;
+	while (diagonalSliders != 0) {
+	    attacked |= AttackTables.getBishopAttacks(Long.numberOfTrailingZeros(diagonalSliders), occupied);
+	    diagonalSliders &= diagonalSliders - 1;
+	}
+	long straightSliders = position.getPieces(PieceType.ROOK, colorIndex) | queens;
+	while (straightSliders != 0) {
+	    attacked |= AttackTables.getRookAttacks(Long.numberOfTrailingZeros(straightSliders), occupied);
+	    straightSliders &= straightSliders - 1;
+	}
+	long king = position.getPieces(PieceType.KING, colorIndex);
+	if (king != 0) {
+	    attacked |= AttackTables.getKingAttacks(Long.numberOfTrailingZeros(king));
+	}
+	return attacked;
+    }
+
+    /**
+     * This method finds the pieces that are pinned to the king. A piece is pinned if it is the only piece between the
+     * king and an enemy sliding piece on the same line. The squares that a pinned piece could move to, the squares
+     * between the king and the pinning piece together with the pinning piece, are saved in pinRays.
+     * @param kingSquare The square of the king.
+     * @param colorIndex The color of the king.
+     * @return A bitboard of the pinned pieces.
+     */
+    private long getPinnedPieces(int kingSquare, int colorIndex) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	long enemy = position.getOccupancy(enemyIndex);
+	long friendly = position.getOccupancy(colorIndex);
+	long queens = position.getPieces(PieceType.QUEEN, enemyIndex);
+
+	// Look from the king through the friendly pieces to find the enemy sliders on the same line.
+	long pinners = (AttackTables.getBishopAttacks(kingSquare, enemy) & (position.getPieces(PieceType.BISHOP, enemyIndex) | queens)) |
+		       (AttackTables.getRookAttacks(kingSquare, enemy) & (position.getPieces(PieceType.ROOK, enemyIndex) | queens));
+	long pinned = 0L;
+	while (pinners != 0) {
+	    int pinnerSquare = Long.numberOfTrailingZeros(pinners);
+	    pinners &= pinners - 1;
+	    long between = AttackTables.getBetween(kingSquare, pinnerSquare);
+	    long blockers = between & position.getOccupancy();
+	    if (Long.bitCount(blockers) == 1 && (blockers & friendly) != 0) {
+		pinned |= blockers;
+		pinRays[Long.numberOfTrailingZeros(blockers)] = between | (1L << pinnerSquare);
+	    }
+	}
+	return pinned;
+    }
+
+    /**
+     * This method returns the squares that a piece is allowed to move to because of pins.
+     * @param square The square of the piece.
+     * @param pinned The pinned pieces.
+     * @return The pin ray if the piece is pinned, otherwise all the squares.
+     */
+    private long getPinMask(int square, long pinned) {
+	if ((pinned & (1L << square)) != 0) {
+	    return pinRays[square];
+	}
+	return ALL_SQUARES;
+    }
+
+    /**
+     * This method adds the pawn moves. That is the pushes, the double pushes, the captures, the promotions and
+     * the en passant captures.
+     * @param moves The list where the moves are added.
+     * @param colorIndex The color of the pawns.
+     * @param kingSquare The square of the king.
+     * @param fromSquares The squares that the moves should start from.
+     * @param checkMask The squares that stops a check.
+     * @param checkers The pieces that are giving check.
+     * @param pinned The pinned pieces.
+     * @param captures True if the captures, the promotions and the en passant captures should be added.
+     * @param quiets True if the pushes that do not promote should be added.
+     */
+    private void addPawnMoves(MoveList moves, int colorIndex, int kingSquare, long fromSquares, long checkMask,
+			      long checkers, long pinned, boolean captures, boolean quiets)
+    {
+	BitboardPosition position = board.getBitboards();
+	long enemy = position.getOccupancy(colorIndex ^ 1);
+	int promotionRank = colorIndex == BitboardPosition.WHITE ? 0 : 7;
+	int enPassantTarget = captures ? getEnPassantIndex() : BitboardPosition.NO_PIECE;
+	// A pawn move is a capture or a promotion if it goes to an enemy square or to the last rank.
+	long captureSquares = enemy | (colorIndex == BitboardPosition.WHITE ? WHITE_PROMOTION_RANK : BLACK_PROMOTION_RANK);
+	long kindMask = (captures ? captureSquares : 0L) | (quiets ? ~captureSquares : 0L);
+
+	long pawns = position.getPieces(PieceType.PAWN, colorIndex) & fromSquares;
+	while (pawns != 0) {
+	    int from = Long.numberOfTrailingZeros(pawns);
+	    pawns &= pawns - 1;
+	    long targets = getPawnTargets(colorIndex, from, enemy, checkMask & getPinMask(from, pinned) & kindMask);
+
+	    while (targets != 0) {
+		int to = Long.numberOfTrailingZeros(targets);
+		targets &= targets - 1;
+		if (BitboardPosition.getRank(to) == promotionRank) {
+		    for (PieceType promotionPieceType : PROMOTION_PIECE_TYPES) {
+			moves.add(createMove(from, to, promotionPieceType, 0));
+		    }
+		} else {
+		    int flags = Math.abs(to - from) == 2 * RANK_OFFSET ? PackedMove.DOUBLE_PUSH : 0;
+		    moves.add(createMove(from, to, null, flags));
+		}
+	    }
+
+	    if (enPassantTarget != BitboardPosition.NO_PIECE &&
+		(AttackTables.getPawnAttacks(colorIndex, from) & (1L << enPassantTarget)) != 0 &&
+		isEnPassantLegal(colorIndex, kingSquare, from, enPassantTarget, checkMask, checkers)) {
+		int capturedSquare = BitboardPosition.getSquareIndex(BitboardPosition.getFile(enPassantTarget), BitboardPosition.getRank(from));
+		int capturedPawn = position.getPieceAt(capturedSquare);
+		moves.add(PackedMove.encode(from, enPassantTarget, position.getPieceAt(from), capturedPawn, null, PackedMove.EN_PASSANT));
+	    }
+	}
+    }
+
+    /**
+     * This method counts the pawn moves in the same way as addPawnMoves adds them. The pawns that are not pinned are
+     * counted all at once by shifting the bitboard of the pawns one rank forward, and one file to the side for the
+     * captures, while the pinned pawns and the en passant captures are counted one by one. A push or capture to the
+     * last rank counts as four moves, one for every promotion piece.
+     * @param colorIndex The color of the pawns.
+     * @param kingSquare The square of the king.
+     * @param checkMask The squares that stops a check.
+     * @param checkers The pieces that are giving check.
+     * @param pinned The pinned pieces.
+     * @return The amount of pawn moves.
+     */
+    private int countPawnMoves(int colorIndex, int kingSquare, long checkMask, long checkers, long pinned) {
+	BitboardPosition position = board.getBitboards();
+	long pawns = position.getPieces(PieceType.PAWN, colorIndex);
+	long enemy = position.getOccupancy(colorIndex ^ 1);
+	long empty = ~position.getOccupancy();
+	long unpinned = pawns & ~pinned;
+
+	long singlePushes;
+	long doublePushes;
+	long leftCaptures;
+	long rightCaptures;
+	long promotionRank;
+	if (colorIndex == BitboardPosition.WHITE) {
+	    singlePushes = (unpinned >>> RANK_OFFSET) & empty;
+	    doublePushes = ((singlePushes & WHITE_DOUBLE_PUSH_RANK) >>> RANK_OFFSET) & empty;
+	    leftCaptures = ((unpinned & ~FILE_A) >>> (RANK_OFFSET + 1)) & enemy;
+	    rightCaptures = ((unpinned & ~FILE_H) >>> (RANK_OFFSET - 1)) & enemy;
+	    promotionRank = WHITE_PROMOTION_RANK;
+	} else {
+	    singlePushes = (unpinned << RANK_OFFSET) & empty;
+	    doublePushes = ((singlePushes & BLACK_DOUBLE_PUSH_RANK) << RANK_OFFSET) & empty;
+	    leftCaptures = ((unpinned & ~FILE_A) << (RANK_OFFSET - 1)) & enemy;
+	    rightCaptures = ((unpinned & ~FILE_H) << (RANK_OFFSET + 1)) & enemy;
+	    promotionRank = BLACK_PROMOTION_RANK;
+	}
+	int count = countPawnTargets(singlePushes & checkMask, promotionRank) +
+		    Long.bitCount(doublePushes & checkMask) +
+		    countPawnTargets(leftCaptures & checkMask, promotionRank) +
+		    countPawnTargets(rightCaptures & checkMask, promotionRank);
+
+	long pinnedPawns = pawns & pinned;
+	while (pinnedPawns != 0) {
+	    int from = Long.numberOfTrailingZeros(pinnedPawns);
+	    pinnedPawns &= pinnedPawns - 1;
+	    count += countPawnTargets(getPawnTargets(colorIndex, from, enemy, checkMask & pinRays[from]), promotionRank);
+	}
+
+	int enPassantTarget = getEnPassantIndex();
+	if (enPassantTarget != BitboardPosition.NO_PIECE) {
+	    // The pawns that could capture en passant are on the squares that an enemy pawn on the target would attack.
+	    long capturingPawns = AttackTables.getPawnAttacks(colorIndex ^ 1, enPassantTarget) & pawns;
+	    while (capturingPawns != 0) {
+		int from = Long.numberOfTrailingZeros(capturingPawns);
+		capturingPawns &= capturingPawns - 1;
+		if (isEnPassantLegal(colorIndex, kingSquare, from, enPassantTarget, checkMask, checkers)) {
+		    count++;
+		}
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * This method counts the pawn moves to a set of squares, where a move to the last rank counts as four moves.
+     * @param targets The destination squares.
+     * @param promotionRank The last rank of the pawns.
+     * @return The amount of moves.
+     */
+    private static int countPawnTargets(long targets, long promotionRank) {
+	return Long.bitCount(targets & ~promotionRank) + PROMOTION_PIECE_TYPES.length * Long.bitCount(targets & promotionRank);
+    }
+
+    /**
+     * This method returns the squares that a pawn could move to, except for en passant. That is the push and the
+     * double push if the squares are empty and the captures of enemy pieces.
+     * @param colorIndex The color of the pawn.
+     * @param from The square of the pawn.
+     * @param enemy The enemy pieces.
+     * @param allowed The squares that the pawn is allowed to move to because of checks and pins.
+     * @return A bitboard of the destination squares.
+     */
+    private long getPawnTargets(int colorIndex, int from, long enemy, long allowed) {
+	BitboardPosition position = board.getBitboards();
+	boolean isWhite = colorIndex == BitboardPosition.WHITE;
+	int forward = isWhite ? -RANK_OFFSET : RANK_OFFSET;
+	int startRank = isWhite ? 6 : 1;
+	long targets = 0L;
+
+	int singlePush = from + forward;
+	if (!position.isOccupied(singlePush)) {
+	    targets |= 1L << singlePush;
+	    int doublePush = singlePush + forward;
+	    if (BitboardPosition.getRank(from) == startRank && !position.isOccupied(doublePush)) {
+		targets |= 1L << doublePush;
+	    }
+	}
+	targets |= AttackTables.getPawnAttacks(colorIndex, from) & enemy;
+	return targets & allowed;
+    }
+
+    /**
+     * This method checks if a pawn move that is not en passant could be played, see isPseudoLegal. A pawn promotes
+     * exactly when it reaches the last rank, captures diagonally and pushes to empty squares.
+     * @param colorIndex The color of the pawn.
+     * @param move The encoded move.
+     * @param from The square of the pawn.
+     * @param to The destination square, which is already known to hold the captured piece of the move.
+     * @return True if the move is pseudo-legal.
+     */
+    private boolean isPawnMovePseudoLegal(int colorIndex, int move, int from, int to) {
+	boolean isWhite = colorIndex == BitboardPosition.WHITE;
+	int forward = isWhite ? -RANK_OFFSET : RANK_OFFSET;
+	int promotionRank = isWhite ? 0 : 7;
+	int startRank = isWhite ? 6 : 1;
+	if (PackedMove.isPromotion(move) != (BitboardPosition.getRank(to) == promotionRank)) {
+	    return false;
+	}
+	if (PackedMove.isCapture(move)) {
+	    return (AttackTables.getPawnAttacks(colorIndex, from) & (1L << to)) != 0;
+	}
+	if (PackedMove.isDoublePush(move)) {
+	    return BitboardPosition.getRank(from) == startRank && to == from + 2 * forward &&
+		   !board.getBitboards().isOccupied(from + forward);
+	}
+	return to == from + forward;
+    }
+
+    /**
+     * This method checks if an en passant capture is legal. The capture has to stop a check if there is one, either by
+     * capturing the checking pawn or by blocking. Because two pawns leave the same rank at once, the capture could open
+     * a line to the king. This is tested by removing both pawns from the occupancy and looking for sliding attackers.
+     * @param colorIndex The color of the capturing pawn.
+     * @param kingSquare The square of the king.
+     * @param from The square of the capturing pawn.
+     * @param to The en passant square.
+     * @param checkMask The squares that stops a check.
+     * @param checkers The pieces that are giving check.
+     * @return True if the en passant capture is legal.
+     */
+    private boolean isEnPassantLegal(int colorIndex, int kingSquare, int from, int to, long checkMask, long checkers) {
+	BitboardPosition position = board.getBitboards();
+	int enemyIndex = colorIndex ^ 1;
+	int capturedSquare = BitboardPosition.getSquareIndex(BitboardPosition.getFile(to), BitboardPosition.getRank(from));
+	long capturedBit = 1L << capturedSquare;
+	if (((1L << to) & checkMask) == 0 && (capturedBit & checkers) == 0) {
+	    return false;
+	}
+
+	long occupied = (position.getOccupancy() & ~(1L << from) & ~capturedBit) | (1L << to);
+	long queens = position.getPieces(PieceType.QUEEN, enemyIndex);
+	long diagonalSliders = position.getPieces(PieceType.BISHOP, enemyIndex) | queens;
+	long straightSliders = position.getPieces(PieceType.ROOK, enemyIndex) | queens;
+	return (AttackTables.getBishopAttacks(kingSquare, occupied) & diagonalSliders) == 0 &&
+	       (AttackTables.getRookAttacks(kingSquare, occupied) & straightSliders) == 0;
+    }
+
+    /**
+     * This method adds the castling moves.
+     * @param moves The list where the moves are added.
+     * @param colorIndex The color of the king.
+     * @param kingSquare The square of the king.
+     * @param kingDanger The squares that are attacked by the enemy.
+     */
+    private void addCastlingMoves(MoveList moves, int colorIndex, int kingSquare, long kingDanger) {
+	long targets = getCastlingTargets(colorIndex, kingSquare, kingDanger);
+	while (targets != 0) {
+	    int to = Long.numberOfTrailingZeros(targets);
+	    targets &= targets - 1;
+	    moves.add(createMove(kingSquare, to, null, PackedMove.CASTLING));
+	}
+    }
+
+    /**
+     * This method returns the squares that the king could castle to. The king must not be in check, the castling
+     * right must exist, the rook must be in its corner, the squares between the king and the rook must be empty and
+     * the squares that the king passes must not be attacked. That the king is not in check is tested by the caller.
+     * @param colorIndex The color of the king.
+     * @param kingSquare The square of the king.
+     * @param kingDanger The squares that are attacked by the enemy.
+     * @return A bitboard of the destination squares of the king.
+     */
+    private long getCastlingTargets(int colorIndex, int kingSquare, long kingDanger) {
+	boolean isWhite = colorIndex == BitboardPosition.WHITE;
+	int homeRank = isWhite ? 7 : 0;
+	if (kingSquare != BitboardPosition.getSquareIndex(4, homeRank)) {
+	    return 0L;
+	}
+	BitboardPosition position = board.getBitboards();
+	long rooks = position.getPieces(PieceType.ROOK, colorIndex);
+	long occupied = position.getOccupancy();
+	long targets = 0L;
+
+	CastlingRight shortCastling = isWhite ? CastlingRight.WHITE_SHORT : CastlingRight.BLACK_SHORT;
+	int shortRookSquare = BitboardPosition.getSquareIndex(7, homeRank);
+	if (board.getCastlingRight(shortCastling) && (rooks & (1L << shortRookSquare)) != 0) {
+	    long emptySquares = AttackTables.getBetween(kingSquare, shortRookSquare);
+	    long kingPath = (1L << (kingSquare + 1)) | (1L << (kingSquare + 2));
+	    if ((occupied & emptySquares) == 0 && (kingDanger & kingPath) == 0) {
+		targets |= 1L << (kingSquare + 2);
+	    }
+	}
+
+	CastlingRight longCastling = isWhite ? CastlingRight.WHITE_LONG : CastlingRight.BLACK_LONG;
+	int longRookSquare = BitboardPosition.getSquareIndex(0, homeRank);
+	if (board.getCastlingRight(longCastling) && (rooks & (1L << longRookSquare)) != 0) {
+	    long emptySquares = AttackTables.getBetween(kingSquare, longRookSquare);
+	    long kingPath = (1L << (kingSquare - 1)) | (1L << (kingSquare - 2));
+	    if ((occupied & emptySquares) == 0 && (kingDanger & kingPath) == 0) {
+		targets |= 1L << (kingSquare - 2);
+	    }
+	}
+	return targets;
+    }
+
+    /**
+     * This method adds a move from a square to every square in a bitboard.
+     * @param moves The list where the moves are added.
+     * @param from The starting square.
+     * @param targets The destination squares.
+     */
+    private void addMoves(MoveList moves, int from, long targets) {
+	while (targets != 0) {
+	    int to = Long.numberOfTrailingZeros(targets);
+	    targets &= targets - 1;
+	    moves.add(createMove(from, to, null, 0));
+	}
+    }
+
+    /**
+     * This method encodes a move between two square indexes. The moved and the captured piece are read from the
+     * mailbox of the bitboards.
+     * @param from The starting square.
+     * @param to The destination square.
+     * @param promotionPieceType The promotion piece type or null.
+     * @param flags The flags of the move.
+     * @return The encoded move.
+     */
+    private int createMove(int from, int to, PieceType promotionPieceType, int flags) {
+	BitboardPosition position = board.getBitboards();
+	return PackedMove.encode(from, to, position.getPieceAt(from), position.getPieceAt(to), promotionPieceType, flags);
+    }
+
+    /**
+     * This method returns the index of the en passant square of the board.
+     * @return The index of the en passant square or NO_PIECE if there is none.
+     */
+    private int getEnPassantIndex() {
+	Square enPassantSquare = board.getEnPassantSquare();
+	if (enPassantSquare == null) {
+	    return BitboardPosition.NO_PIECE;
+	}
+	return BitboardPosition.getSquareIndex(enPassantSquare.getFile(), enPassantSquare.getRank());
+    }
+}
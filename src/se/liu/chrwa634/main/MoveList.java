@@ -0,0 +1,102 @@
+package se.liu.chrwa634.main;
+
+/**
+ * This class is a list of moves encoded with PackedMove. The moves are saved in an int array so that a list could
+ * be reused by clearing it, which means that generating moves does not create any objects.
+ */
+public class MoveList
+{
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+	this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+	moves = new int[capacity];
+	size = 0;
+    }
+
+    /**
+     * This method adds a move to the end of the list.
+     * @param move The encoded move.
+     */
+    public void add(int move) {
+	if (size == moves.length) {
+	    int[] largerMoves = new int[moves.length * 2];
+	    System.arraycopy(moves, 0, largerMoves, 0, size);
+	    moves = largerMoves;
+	}
+	moves[size] = move;
+	size++;
+    }
+
+    /**
+     * This method returns the move at an index.
+     * @param index The index of the move.
+     * @return The encoded move.
+     */
+    public int get(int index) {
+	return moves[index];
+    }
+
+    /**
+     * This method replaces the move at an index.
+     * @param index The index of the move.
+     * @param move The new encoded move.
+     */
+    public void set(int index, int move) {
+	moves[index] = move;
+    }
+
+    /**
+     * This method swaps two moves in the list.
+     * @param first The index of the first move.
+     * @param second The index of the second move.
+     */
+    public void swap(int first, int second) {
+	int move = moves[first];
+	moves[first] = moves[second];
+	moves[second] = move;
+    }
+
+    /**
+     * This method checks if the list contains a move.
+     * @param move The encoded move.
+     * @return True if the move is in the list.
+     */
+    public boolean contains(int move) {
+	for (int index = 0; index < size; index++) {
+	    if (moves[index] == move) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * This method returns the amount of moves in the list.
+     * @return The size of the list.
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * This method checks if the list is empty.
+     * @return True if there are no moves in the list.
+     */
+    public boolean isEmpty() {
+	return size == 0;
+    }
+
+    /**
+     * This method removes all the moves from the list. The array is kept so that the list could be reused.
+     */
+    public void clear() {
+	size = 0;
+    }
+}
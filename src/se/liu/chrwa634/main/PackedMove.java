@@ -0,0 +1,217 @@
+package se.liu.chrwa634.main;
+
+import se.liu.chrwa634.pieces.PieceType;
+
+/**
+ * This class encodes a move as a single int so that moves could be generated and stored without creating any objects.
+ * The bits of the int are used as follows:
+ *
+ * bits 0-5: the index of the starting square.
+ * bits 6-11: the index of the destination square.
+ * bits 12-15: the piece index of the moved piece.
+ * bits 16-19: the piece index of the captured piece plus one, zero if nothing is captured.
+ * bits 20-22: the ordinal of the promotion piece type plus one, zero if it is not a promotion.
+ * bit 23: the move is an en passant.
+ * bit 24: the move is a castling move.
+ * bit 25: the move is a pawn double push.
+ *
+ * The square and piece indexes are the same as in BitboardPosition. The class also converts between the encoding
+ * and the Move class that is used by the GUI.
+ */
+public final class PackedMove
+{
+    public static final int NO_MOVE = 0;
+    public static final int EN_PASSANT = 1 << 23;
+    public static final int CASTLING = 1 << 24;
+    public static final int DOUBLE_PUSH = 1 << 25;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PIECE_MASK = 0xF;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final int PROMOTION_SHIFT = 20;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private PackedMove() {}
+
+    /**
+     * This method encodes a move.
+     * @param from The index of the starting square.
+     * @param to The index of the destination square.
+     * @param pieceIndex The piece index of the moved piece.
+     * @param capturedPieceIndex The piece index of the captured piece or BitboardPosition.NO_PIECE.
+     * @param promotionPieceType The promotion piece type or null.
+     * @param flags EN_PASSANT, CASTLING, DOUBLE_PUSH or zero.
+     * @return The encoded move.
+     */
+    public static int encode(int from, int to, int pieceIndex, int capturedPieceIndex, PieceType promotionPieceType, int flags) {
+	int promotion = promotionPieceType == null ? 0 : promotionPieceType.ordinal() + 1;
+	return from | (to << TO_SHIFT) | (pieceIndex << PIECE_SHIFT) | ((capturedPieceIndex + 1) << CAPTURED_SHIFT) |
+	       (promotion << PROMOTION_SHIFT) | flags;
+    }
+
+    /**
+     * This method returns the starting square of a move.
+     * @param move The encoded move.
+     * @return The index of the starting square.
+     */
+    public static int getFrom(int move) {
+	return move & SQUARE_MASK;
+    }
+
+    /**
+     * This method returns the destination square of a move.
+     * @param move The encoded move.
+     * @return The index of the destination square.
+     */
+    public static int getTo(int move) {
+	return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * This method returns the moved piece of a move.
+     * @param move The encoded move.
+     * @return The piece index of the moved piece.
+     */
+    public static int getPiece(int move) {
+	return (move >>> PIECE_SHIFT) & PIECE_MASK;
+    }
+
+    /**
+     * This method returns the captured piece of a move.
+     * @param move The encoded move.
+     * @return The piece index of the captured piece or BitboardPosition.NO_PIECE.
+     */
+    public static int getCapturedPiece(int move) {
+	return ((move >>> CAPTURED_SHIFT) & PIECE_MASK) - 1;
+    }
+
+    /**
+     * This method checks if a move captures a piece.
+     * @param move The encoded move.
+     * @return True if the move is a capture.
+     */
+    public static boolean isCapture(int move) {
+	return ((move >>> CAPTURED_SHIFT) & PIECE_MASK) != 0;
+    }
+
+    /**
+     * This method returns the promotion piece type of a move.
+     * @param move The encoded move.
+     * @return The promotion piece type or null if the move is not a promotion.
+     */
+    public static PieceType getPromotionPieceType(int move) {
+	int promotion = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+	return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    /**
+     * This method checks if a move is a promotion.
+     * @param move The encoded move.
+     * @return True if the move is a promotion.
+     */
+    public static boolean isPromotion(int move) {
+	return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    /**
+     * This method checks if a move is an en passant.
+     * @param move The encoded move.
+     * @return True if the move is an en passant.
+     */
+    public static boolean isEnPassant(int move) {
+	return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * This method checks if a move is a castling move.
+     * @param move The encoded move.
+     * @return True if the move is a castling move.
+     */
+    public static boolean isCastling(int move) {
+	return (move & CASTLING) != 0;
+    }
+
+    /**
+     * This method checks if a move is a pawn double push.
+     * @param move The encoded move.
+     * @return True if the move is a double push.
+     */
+    public static boolean isDoublePush(int move) {
+	return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * This method converts an encoded move to a Move object.
+     * @param move The encoded move.
+     * @param board The board that the move is performed on.
+     * @return The Move object.
+     */
+    public static Move toMove(int move, Board board) {
+	Square startingSquare = board.getSquare(getFrom(move));
+	Square destinationSquare = board.getSquare(getTo(move));
+	return new Move(startingSquare, destinationSquare, getPromotionPieceType(move));
+    }
+
+    /**
+     * This method encodes a Move object. The moved and captured pieces are read from the board so the move has to be
+     * encoded before it is performed.
+     * @param move The Move object.
+     * @param board The board that the move will be performed on.
+     * @return The encoded move.
+     */
+    public static int fromMove(Move move, Board board) {
+	BitboardPosition position = board.getBitboards();
+	Square startingSquare = move.getStartingSquare(board);
+	Square destinationSquare = move.getDestinationSquare(board);
+	int from = BitboardPosition.getSquareIndex(startingSquare.getFile(), startingSquare.getRank());
+	int to = BitboardPosition.getSquareIndex(destinationSquare.getFile(), destinationSquare.getRank());
+	int pieceIndex = position.getPieceAt(from);
+	int capturedPieceIndex = position.getPieceAt(to);
+	PieceType pieceType = BitboardPosition.getPieceType(pieceIndex);
+	int fileDistance = Math.abs(destinationSquare.getFile() - startingSquare.getFile());
+	int rankDistance = Math.abs(destinationSquare.getRank() - startingSquare.getRank());
+
+	int flags = 0;
+	if (pieceType == PieceType.PAWN) {
+	    if (fileDistance != 0 && capturedPieceIndex == BitboardPosition.NO_PIECE) {
+		flags = EN_PASSANT;
+		int capturedSquare = BitboardPosition.getSquareIndex(destinationSquare.getFile(), startingSquare.getRank());
+		capturedPieceIndex = position.getPieceAt(capturedSquare);
+	    } else if (rankDistance == 2) {
+		flags = DOUBLE_PUSH;
+	    }
+	} else if (pieceType == PieceType.KING && fileDistance == 2) {
+	    flags = CASTLING;
+	}
+	return encode(from, to, pieceIndex, capturedPieceIndex, move.getPromotionPieceType(), flags);
+    }
+
+    /**
+     * This method returns the move in coordinate notation, for example e2e4 or e7e8q.
+     * @param move The encoded move.
+     * @return The move as a string.
+     */
+    public static String toNotation(int move) {
+	StringBuilder notation = new StringBuilder();
+	appendSquare(notation, getFrom(move));
+	appendSquare(notation, getTo(move));
+	PieceType promotionPieceType = getPromotionPieceType(move);
+	if (promotionPieceType != null) {
+	    notation.append(promotionPieceType.getFen());
+	}
+	return notation.toString();
+    }
+
+    /**
+     * This method appends a square in algebraic notation to a string builder.
+     * @param notation The string builder.
+     * @param square The index of the square.
+     */
+    private static void appendSquare(StringBuilder notation, int square) {
+	notation.append((char) ('a' + BitboardPosition.getFile(square)));
+	notation.append((char) ('0' + Board.getBoardSize() - BitboardPosition.getRank(square)));
+    }
+}
@@ -1,8 +1,7 @@
 package se.liu.chrwa634.main;
 
 import se.liu.chrwa634.pieces.Piece;
-
-import java.awt.*;
+import se.liu.chrwa634.pieces.Side;
 
 
 /**
@@ -11,28 +10,21 @@ import java.awt.*;
  * contain a Piece object and this represents that a piece is currently occupying the
  * square.
  *
- * The square also requires a color(which is either black or white that is essential
- * for drawing the object. The Square class has also a flag, isSelected, in which
- * if it is true then we also draw a marker. The marker represent that a piece could
- * be moved into this square. The square has two static constants SQUARE_SIZE
- * and SQUARE_SELECT_SIZE. SQUARE_SIZE is lenght of a side of the drawn square.
- * SQUARE_SELECT_SIZE is the radius of the marker.
+ * The square also has a color which is either black or white. The square is drawn by
+ * the BoardRenderer of the GUI so this class does not depend on AWT.
  *
  * @author Chrwa634
  * @version 1.0
  */
 public class Square
 {
-    private final static int SQUARE_SIZE = 80;
-    private final static int SQUARE_SELECT_SIZE = 20;
-    private final static Color[] GUI_COLORS = {new Color(0xFFD9D9), new Color(0x8E2CA0)};
-    private Color color;
+    private Side color;
     private Piece piece = null;
     private int file;
     private int rank;
     private Board board;
 
-    public Square(int file, int rank, Color color, Board board) {
+    public Square(int file, int rank, Side color, Board board) {
         this.board = board;
         this.color = color;
         this.file = file;
@@ -71,7 +63,7 @@ public class Square
      * This method returns the color of the square.
      * @return The color of the square.
      */
-    public Color getColor() {
+    public Side getColor() {
         return color;
     }
 
@@ -105,58 +97,12 @@ public class Square
         }
     }
 
-    /**
-     * This method gets the SQUARE_SIZE constant of the square class
-     * @return The SQUARE_SIZE of the square class.
-     */
-    public static int getSquareSize() {
-        return SQUARE_SIZE;
-    }
-
-    /**
-     * This method draws the square. If isSelected equals to true then we draw a marker.
-     * If isSelected equals to true and there is a piece occupying this square then we
-     * draw a pink rectangle, which represents that the move would capture the piece
-     * that is currently occupying the square.
-     * @param graphics The graphics object which would be drawn on.
-     */
-    public void draw(Graphics graphics) {
-        int xDraw = getFile() * SQUARE_SIZE;
-        int yDraw = getRank() * SQUARE_SIZE;
-        graphics.setColor(getDrawingColor());
-        graphics.fillRect(xDraw, yDraw, SQUARE_SIZE, SQUARE_SIZE);
-        if (board.isSquareSelected(this)) {
-            if (isOccupied()) {
-                graphics.setColor(Color.PINK);
-                graphics.fillRect( xDraw,yDraw, SQUARE_SIZE, SQUARE_SIZE);
-            } else {
-                //an offset to put the circle in the middle of the square.
-                int circleOffset = (SQUARE_SIZE - SQUARE_SELECT_SIZE) / 2;
-                graphics.setColor(Color.CYAN);
-                graphics.fillOval(xDraw + circleOffset, yDraw + circleOffset,
-                                  SQUARE_SELECT_SIZE, SQUARE_SELECT_SIZE);
-            }
-        }
-    }
-
     /**
      * This method checks if this square is attacked by a specific piece color.
      * @param color The color to check
      * @return true if the square is being attacked by a piece of the specified color.
      */
-    public boolean isAttacked(Color color) {
+    public boolean isAttacked(Side color) {
         return board.isSquareAttacked(file, rank, color);
     }
-
-    /**
-     * This method returns the drawing color of the square on the panel.
-     * @return The drawing color of the square.
-     */
-    private Color getDrawingColor() {
-        if (color.equals(Color.WHITE)) {
-            return GUI_COLORS[0];
-        } else {
-            return GUI_COLORS[1];
-        }
-    }
 }
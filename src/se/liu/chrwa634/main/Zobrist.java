@@ -0,0 +1,78 @@
+package se.liu.chrwa634.main;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the random numbers that are used to give every position a 64-bit Zobrist key. The key of a position
+ * is the XOR of the number of every piece on its square, the number of the side to move if it is black, the number of
+ * the castling rights and the number of the en passant file. Since XOR is its own inverse the board could update the
+ * key when a single piece or right changes instead of computing it again. The numbers are made from a fixed seed so a
+ * position always gets the same key.
+ */
+public final class Zobrist
+{
+    private static final long SEED = 0x5EED_C4E55L;
+    private static final int PIECE_AMOUNT = 12;
+    private static final int SQUARE_AMOUNT = 64;
+    private static final int CASTLING_AMOUNT = 16;
+    private static final int FILE_AMOUNT = 8;
+
+    private static final long[][] PIECE_SQUARE_KEYS = new long[PIECE_AMOUNT][SQUARE_AMOUNT];
+    private static final long[] CASTLING_KEYS = new long[CASTLING_AMOUNT];
+    private static final long[] EN_PASSANT_KEYS = new long[FILE_AMOUNT];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+	SplittableRandom random = new SplittableRandom(SEED);
+	for (long[] squareKeys : PIECE_SQUARE_KEYS) {
+	    for (int square = 0; square < SQUARE_AMOUNT; square++) {
+		squareKeys[square] = random.nextLong();
+	    }
+	}
+	for (int castlingRights = 0; castlingRights < CASTLING_AMOUNT; castlingRights++) {
+	    CASTLING_KEYS[castlingRights] = random.nextLong();
+	}
+	for (int file = 0; file < FILE_AMOUNT; file++) {
+	    EN_PASSANT_KEYS[file] = random.nextLong();
+	}
+	BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * This method returns the number of a piece standing on a square.
+     * @param pieceIndex The piece index of the piece.
+     * @param square The index of the square.
+     * @return The Zobrist number of the piece on the square.
+     */
+    public static long getPieceKey(int pieceIndex, int square) {
+	return PIECE_SQUARE_KEYS[pieceIndex][square];
+    }
+
+    /**
+     * This method returns the number of a set of castling rights.
+     * @param castlingRights The castling rights as a bitmask.
+     * @return The Zobrist number of the castling rights.
+     */
+    public static long getCastlingKey(int castlingRights) {
+	return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * This method returns the number of an en passant file.
+     * @param file The file of the en passant square.
+     * @return The Zobrist number of the en passant file.
+     */
+    public static long getEnPassantKey(int file) {
+	return EN_PASSANT_KEYS[file];
+    }
+
+    /**
+     * This method returns the number that is added to the key when black is to move.
+     * @return The Zobrist number of the side to move.
+     */
+    public static long getBlackToMoveKey() {
+	return BLACK_TO_MOVE_KEY;
+    }
+}
@@ -0,0 +1,151 @@
+package se.liu.chrwa634.perft;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.PackedMove;
+import se.liu.chrwa634.search.Search;
+import se.liu.chrwa634.search.SearchLimits;
+import se.liu.chrwa634.search.SearchResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is the command line entry point of bench. It counts a fixed set of positions to fixed depths with perft
+ * on one thread, searches every position to SEARCH_DEPTH with Search and prints the total amount of nodes, which is
+ * called the signature, and the nodes per second. The signature tells if the behaviour has changed since it only
+ * changes if the moves that are generated or the nodes that are searched change, and the nodes per second tells if the
+ * speed has changed. The search only has a depth limit and its transposition table is cleared before every position,
+ * so it searches the same nodes on every run. With --output the result is also written as JSON so runs could be
+ * saved and compared.
+ *
+ * Before the bench is measured all positions are counted and searched one ply less deep so that the JIT compiler has
+ * compiled the move generation and the search.
+ *
+ * Example: bench --output bench-before.json
+ */
+public final class BenchCommand
+{
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+    //The search depth must never be changed for the same reason as the positions, see BenchPosition.
+    private static final int SEARCH_DEPTH = 5;
+
+    private BenchCommand() {}
+
+    public static void main(String[] args) {
+	Options options = createOptions();
+	CommandLine commandLine;
+	try {
+	    commandLine = new DefaultParser().parse(options, args);
+	} catch (ParseException e) {
+	    System.err.println(e.getMessage());
+	    new HelpFormatter().printHelp("bench [--output FILE]", options);
+	    System.exit(1);
+	    return;
+	}
+	if (commandLine.hasOption("help")) {
+	    new HelpFormatter().printHelp("bench [--output FILE]", options);
+	    return;
+	}
+
+	Board board = new Board();
+	Perft perft = new Perft(board, false, false);
+	Search search = new Search(board);
+	for (BenchPosition position : BenchPosition.values()) {
+	    board.loadFen(position.getFen());
+	    perft.run(position.getDepth() - 1);
+	    search.search(SearchLimits.depth(SEARCH_DEPTH - 1));
+	}
+
+	BenchResult result = runBench(board, perft, search);
+	System.out.println();
+	System.out.println("Nodes: " + result.getSignature());
+	System.out.println("Time: " + result.getTimeMillis() + " ms");
+	System.out.println("NPS: " + result.getNodesPerSecond());
+
+	if (commandLine.hasOption("output")) {
+	    String fileName = commandLine.getOptionValue("output");
+	    try {
+		writeJson(result, fileName);
+	    } catch (IOException e) {
+		System.err.println("Could not write the result to " + fileName + ": " + e.getMessage());
+		System.exit(1);
+	    }
+	}
+    }
+
+    /**
+     * This method counts and searches every bench position and prints the nodes and the time of every position.
+     * @param board The board that the positions are loaded on.
+     * @param perft The perft of the board.
+     * @param search The search of the board.
+     * @return The result of the bench.
+     */
+    private static BenchResult runBench(Board board, Perft perft, Search search) {
+	List<BenchPositionResult> positions = new ArrayList<>();
+	long totalNodes = 0;
+	long totalTime = 0;
+	for (BenchPosition position : BenchPosition.values()) {
+	    board.loadFen(position.getFen());
+	    long startTime = System.nanoTime();
+	    long nodes = perft.run(position.getDepth()).getNodes();
+	    long elapsedTime = System.nanoTime() - startTime;
+
+	    search.getTranspositionTable().clear();
+	    startTime = System.nanoTime();
+	    SearchResult searchResult = search.search(SearchLimits.depth(SEARCH_DEPTH));
+	    long searchTime = System.nanoTime() - startTime;
+	    String bestMove = PackedMove.toNotation(searchResult.getBestMove());
+
+	    totalNodes += nodes + searchResult.getNodes();
+	    totalTime += elapsedTime + searchTime;
+	    positions.add(new BenchPositionResult(position.name(), position.getFen(), position.getDepth(), nodes,
+						  elapsedTime / NANOS_PER_MILLISECOND, SEARCH_DEPTH, searchResult.getNodes(),
+						  searchTime / NANOS_PER_MILLISECOND, bestMove));
+	    System.out.println(String.format("%-20s depth %d %12d nodes %8d ms   search %10d nodes %8d ms %s", position.name(),
+					     position.getDepth(), nodes, elapsedTime / NANOS_PER_MILLISECOND,
+					     searchResult.getNodes(), searchTime / NANOS_PER_MILLISECOND, bestMove));
+	}
+	long nodesPerSecond = totalTime == 0 ? 0 : totalNodes * NANOS_PER_SECOND / totalTime;
+	return new BenchResult(System.getProperty("java.version"), totalNodes, totalTime / NANOS_PER_MILLISECOND,
+			       nodesPerSecond, positions);
+    }
+
+    /**
+     * This method writes the result of the bench as JSON to a file.
+     * @param result The result of the bench.
+     * @param fileName The name of the file, it is replaced if it exists.
+     * @throws IOException If the file could not be written.
+     */
+    private static void writeJson(BenchResult result, String fileName) throws IOException {
+	Gson gson = new GsonBuilder().setPrettyPrinting().create();
+	try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+	    gson.toJson(result, writer);
+	}
+    }
+
+    /**
+     * This method creates the command line options of bench.
+     * @return The options.
+     */
+    private static Options createOptions() {
+	Options options = new Options();
+	options.addOption(Option.builder("o").longOpt("output").hasArg().argName("FILE")
+				.desc("write the result as JSON to the file").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("print this help").build());
+	return options;
+    }
+}
@@ -0,0 +1,35 @@
+package se.liu.chrwa634.perft;
+
+/**
+ * This enum holds the positions of the bench command and the depth that each of them is counted to. The positions and
+ * depths must never be changed, since the total amount of nodes of the bench is compared between versions. If they are
+ * changed every old signature becomes useless.
+ */
+enum BenchPosition
+{
+    START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 5),
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4),
+    ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5),
+    PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4),
+    DISCOVERED_CHECKS("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4),
+    HIDDEN_CHECKMATE("k1r4Q/8/K1b5/8/8/8/8/1Q5B w - - 0 1", 4),
+    KNIGHT_ENDGAME("7K/P5n1/1n6/8/8/1N6/p5N1/7k w - - 0 1", 5),
+    CASTLING_ATTACKED("r3k2r/8/1N6/2b3B1/8/6n1/8/R3K2R w KQkq - 0 1", 4);
+
+    private final String fen;
+    private final int depth;
+
+    BenchPosition(String fen, int depth) {
+	this.fen = fen;
+	this.depth = depth;
+    }
+
+    public String getFen() {
+	return fen;
+    }
+
+    public int getDepth() {
+	return depth;
+    }
+}
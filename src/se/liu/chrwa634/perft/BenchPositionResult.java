@@ -0,0 +1,68 @@
+package se.liu.chrwa634.perft;
+
+/**
+ * This class holds the result of one position of the bench command, both the perft count and the search. The best
+ * move is written in coordinate notation.
+ */
+public class BenchPositionResult
+{
+    private final String name;
+    private final String fen;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int searchDepth;
+    private final long searchNodes;
+    private final long searchTimeMillis;
+    private final String bestMove;
+
+    public BenchPositionResult(String name, String fen, int depth, long nodes, long timeMillis, int searchDepth,
+			       long searchNodes, long searchTimeMillis, String bestMove)
+    {
+	this.name = name;
+	this.fen = fen;
+	this.depth = depth;
+	this.nodes = nodes;
+	this.timeMillis = timeMillis;
+	this.searchDepth = searchDepth;
+	this.searchNodes = searchNodes;
+	this.searchTimeMillis = searchTimeMillis;
+	this.bestMove = bestMove;
+    }
+
+    public String getName() {
+	return name;
+    }
+
+    public String getFen() {
+	return fen;
+    }
+
+    public int getDepth() {
+	return depth;
+    }
+
+    public long getNodes() {
+	return nodes;
+    }
+
+    public long getTimeMillis() {
+	return timeMillis;
+    }
+
+    public int getSearchDepth() {
+	return searchDepth;
+    }
+
+    public long getSearchNodes() {
+	return searchNodes;
+    }
+
+    public long getSearchTimeMillis() {
+	return searchTimeMillis;
+    }
+
+    public String getBestMove() {
+	return bestMove;
+    }
+}
@@ -0,0 +1,48 @@
+package se.liu.chrwa634.perft;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the result of a run of the bench command. It is written as JSON with Gson so the field names are
+ * the names in the file. The signature is the total amount of perft and search nodes of all the positions, which only
+ * changes if the rules, the move generation or the search change, while the nodes per second tells how fast this run
+ * was.
+ */
+public class BenchResult
+{
+    private final String javaVersion;
+    private final long signature;
+    private final long timeMillis;
+    private final long nodesPerSecond;
+    private final List<BenchPositionResult> positions;
+
+    public BenchResult(String javaVersion, long signature, long timeMillis, long nodesPerSecond, List<BenchPositionResult> positions) {
+	this.javaVersion = javaVersion;
+	this.signature = signature;
+	this.timeMillis = timeMillis;
+	this.nodesPerSecond = nodesPerSecond;
+	this.positions = new ArrayList<>(positions);
+    }
+
+    public String getJavaVersion() {
+	return javaVersion;
+    }
+
+    public long getSignature() {
+	return signature;
+    }
+
+    public long getTimeMillis() {
+	return timeMillis;
+    }
+
+    public long getNodesPerSecond() {
+	return nodesPerSecond;
+    }
+
+    public List<BenchPositionResult> getPositions() {
+	return Collections.unmodifiableList(positions);
+    }
+}
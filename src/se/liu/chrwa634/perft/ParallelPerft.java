@@ -0,0 +1,141 @@
+package se.liu.chrwa634.perft;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.MoveList;
+import se.liu.chrwa634.main.PackedMove;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class counts the positions of perft on several threads. The tree is split into one fork-join task for every
+ * move at the root and at the first plies below it, and the tasks are run in a ForkJoinPool so that idle threads could
+ * steal the tasks of busy threads. Every worker thread has its own board and Perft, since a board could only be used
+ * by one thread, and the tasks pass the positions between the threads as FEN strings.
+ *
+ * The positions below the split plies are counted with the normal Perft of the worker, so the counts are the same as
+ * for a Perft on a single thread.
+ */
+public class ParallelPerft
+{
+    /**
+     * The default amount of plies that are split into tasks. Two plies give about 400 tasks in the start position,
+     * which is enough to keep many threads busy while the cost of every task is still small compared to its work.
+     */
+    public static final int DEFAULT_SPLIT_PLIES = 2;
+
+    private final String fen;
+    private final boolean statistics;
+    private final boolean pieceMoves;
+    private final int threads;
+    private final int splitPlies;
+    private final PerftCache cache;
+    private final ThreadLocal<Perft> workerPerft;
+
+    /**
+     * This is the constructor. The position of the board is copied when the parallel perft is created, so the board
+     * could be changed afterwards without changing the counts.
+     * @param board The board whose position will be counted.
+     * @param statistics True if the captures, checks and so on should be counted.
+     * @param pieceMoves True if the moves should be generated with Piece.getValidMoves.
+     * @param threads The amount of worker threads, at least 1.
+     * @param splitPlies The amount of plies from the root that are split into tasks, at least 1.
+     */
+    public ParallelPerft(Board board, boolean statistics, boolean pieceMoves, int threads, int splitPlies) {
+	this(board, statistics, pieceMoves, threads, splitPlies, null);
+    }
+
+    /**
+     * This is the constructor of a parallel perft whose workers share a cache of the counts. The cache does not need
+     * any locks, see PerftCache.
+     * @param board The board whose position will be counted.
+     * @param statistics True if the captures, checks and so on should be counted, then the cache is not used.
+     * @param pieceMoves True if the moves should be generated with Piece.getValidMoves.
+     * @param threads The amount of worker threads, at least 1.
+     * @param splitPlies The amount of plies from the root that are split into tasks, at least 1.
+     * @param cache The cache of the counts, or null if no cache should be used.
+     */
+    public ParallelPerft(Board board, boolean statistics, boolean pieceMoves, int threads, int splitPlies,
+			 PerftCache cache)
+    {
+	if (threads < 1) {
+	    throw new IllegalArgumentException("The amount of threads must be at least 1");
+	}
+	if (splitPlies < 1) {
+	    throw new IllegalArgumentException("The amount of split plies must be at least 1");
+	}
+	this.fen = board.convertBoardToFen();
+	this.statistics = statistics;
+	this.pieceMoves = pieceMoves;
+	this.threads = threads;
+	this.splitPlies = splitPlies;
+	this.cache = cache;
+	this.workerPerft = ThreadLocal.withInitial(() -> new Perft(new Board(), statistics, pieceMoves, cache));
+    }
+
+    /**
+     * This method counts the positions at a depth.
+     * @param depth The amount of plies.
+     * @return The counts of the positions.
+     */
+    public PerftResult run(int depth) {
+	if (depth == 0) {
+	    PerftResult result = new PerftResult();
+	    result.addNodes(1);
+	    return result;
+	}
+	ForkJoinPool pool = new ForkJoinPool(threads);
+	try {
+	    return pool.invoke(new PerftTask(this, fen, depth, splitPlies));
+	} finally {
+	    pool.shutdown();
+	}
+    }
+
+    /**
+     * This method counts the positions at a depth for every move of the current position, like Perft.divide but with
+     * the moves counted on several threads.
+     * @param depth The amount of plies, at least 1.
+     * @return A map from every move to the counts of the positions after it, in the order the moves were generated.
+     */
+    public Map<String, PerftResult> divide(int depth) {
+	Board rootBoard = new Board();
+	rootBoard.loadFen(fen);
+	Perft rootPerft = new Perft(rootBoard, statistics, pieceMoves, cache);
+	if (depth <= 1) {
+	    return rootPerft.divide(depth);
+	}
+
+	MoveList moves = new MoveList();
+	rootPerft.generateMoves(moves);
+	List<PerftTask> tasks = PerftTask.createSubtasks(this, rootPerft, depth - 1, splitPlies - 1);
+	ForkJoinPool pool = new ForkJoinPool(threads);
+	try {
+	    for (PerftTask task : tasks) {
+		pool.execute(task);
+	    }
+	    Map<String, PerftResult> results = new LinkedHashMap<>();
+	    for (int index = 0; index < tasks.size(); index++) {
+		results.put(PackedMove.toNotation(moves.get(index)), tasks.get(index).join());
+	    }
+	    return results;
+	} finally {
+	    pool.shutdown();
+	}
+    }
+
+    public int getThreads() {
+	return threads;
+    }
+
+    /**
+     * This method returns the Perft of the current worker thread. It is created with its own board the first time a
+     * thread asks for it.
+     * @return The Perft of the current thread.
+     */
+    Perft getWorkerPerft() {
+	return workerPerft.get();
+    }
+}
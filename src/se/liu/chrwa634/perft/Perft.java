@@ -0,0 +1,249 @@
+package se.liu.chrwa634.perft;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.Move;
+import se.liu.chrwa634.main.MoveList;
+import se.liu.chrwa634.main.PackedMove;
+import se.liu.chrwa634.pieces.Piece;
+import se.liu.chrwa634.pieces.Side;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class counts the positions that could be reached from the position of a board in a given amount of plies, which
+ * is called perft. The numbers could be compared with published perft numbers to check that the move generation is
+ * correct. The moves are performed with makeMove and taken back with unmakeMove so the board is the same afterwards.
+ *
+ * The moves are generated by the move generator of the board, or if pieceMoves is set, by asking every piece for its
+ * valid moves with Piece.getValidMoves like the GUI does. If statistics is set the captures, en passants, castling
+ * moves, promotions, checks and checkmates of the last ply are counted too, which means that every move of the last
+ * ply has to be performed.
+ *
+ * If a PerftCache is given the counts of positions that have been counted before are taken from it, so positions that
+ * are reached by different move orders are only counted once.
+ */
+public class Perft
+{
+    private final Board board;
+    private final boolean statistics;
+    private final boolean pieceMoves;
+    private final PerftCache cache;
+    private MoveList[] moveLists;
+
+    public Perft(Board board, boolean statistics, boolean pieceMoves) {
+	this(board, statistics, pieceMoves, null);
+    }
+
+    /**
+     * This is the constructor of a Perft that saves its counts in a cache. The cache is only used when statistics is
+     * not set, since it only holds the amount of nodes.
+     * @param board The board whose position will be counted.
+     * @param statistics True if the captures, checks and so on should be counted.
+     * @param pieceMoves True if the moves should be generated with Piece.getValidMoves.
+     * @param cache The cache of the counts, or null if no cache should be used.
+     */
+    public Perft(Board board, boolean statistics, boolean pieceMoves, PerftCache cache) {
+	this.board = board;
+	this.statistics = statistics;
+	this.pieceMoves = pieceMoves;
+	this.cache = statistics ? null : cache;
+	this.moveLists = new MoveList[0];
+    }
+
+    /**
+     * This method counts the positions at a depth.
+     * @param depth The amount of plies.
+     * @return The counts of the positions.
+     */
+    public PerftResult run(int depth) {
+	createMoveLists(depth);
+	PerftResult result = new PerftResult();
+	if (depth == 0) {
+	    result.addNodes(1);
+	} else {
+	    search(depth, result);
+	}
+	return result;
+    }
+
+    /**
+     * This method counts the positions at a depth for every move of the current position, which is called divide.
+     * The moves are written in coordinate notation, for example e2e4 or e7e8q.
+     * @param depth The amount of plies, at least 1.
+     * @return A map from every move to the counts of the positions after it, in the order the moves were generated.
+     */
+    public Map<String, PerftResult> divide(int depth) {
+	if (depth < 1) {
+	    throw new IllegalArgumentException("The depth of divide must be at least 1");
+	}
+	createMoveLists(depth);
+	Map<String, PerftResult> results = new LinkedHashMap<>();
+	MoveList moves = moveLists[depth];
+	generateMoves(moves);
+	for (int index = 0; index < moves.size(); index++) {
+	    int move = moves.get(index);
+	    PerftResult result = new PerftResult();
+	    if (depth == 1) {
+		countLeaf(move, result);
+	    } else {
+		board.makeMove(move);
+		search(depth - 1, result);
+		board.unmakeMove();
+	    }
+	    results.put(PackedMove.toNotation(move), result);
+	}
+	return results;
+    }
+
+    /**
+     * This method counts the positions at a depth from the current position. The depth must be at least 1. If there
+     * is a cache the count is taken from it when the position has been counted before, otherwise the count is saved
+     * in it. Positions at depth 1 are not saved since counting their moves costs about as much as looking them up.
+     * @param depth The amount of plies left.
+     * @param result The result that the counts are added to.
+     */
+    private void search(int depth, PerftResult result) {
+	boolean useCache = cache != null && depth > 1;
+	long key = board.getZobristKey();
+	if (useCache) {
+	    long nodes = cache.probe(key, depth);
+	    if (nodes >= 0) {
+		result.addNodes(nodes);
+		return;
+	    }
+	}
+	long nodesBefore = result.getNodes();
+
+	//At the last ply only the amount of moves is needed, so they are counted instead of generated.
+	if (depth == 1 && !statistics) {
+	    result.addNodes(countMoves());
+	    return;
+	}
+	MoveList moves = moveLists[depth];
+	generateMoves(moves);
+	for (int index = 0; index < moves.size(); index++) {
+	    int move = moves.get(index);
+	    if (depth == 1) {
+		countLeaf(move, result);
+	    } else {
+		board.makeMove(move);
+		search(depth - 1, result);
+		board.unmakeMove();
+	    }
+	}
+	if (useCache) {
+	    cache.store(key, depth, result.getNodes() - nodesBefore);
+	}
+    }
+
+    /**
+     * This method counts a move of the last ply. If statistics is set the move is performed to see if it gives check
+     * or checkmate.
+     * @param move The encoded move.
+     * @param result The result that the counts are added to.
+     */
+    private void countLeaf(int move, PerftResult result) {
+	result.addNodes(1);
+	if (!statistics) {
+	    return;
+	}
+	if (PackedMove.isCapture(move)) {
+	    result.addCapture();
+	}
+	if (PackedMove.isEnPassant(move)) {
+	    result.addEnPassant();
+	}
+	if (PackedMove.isCastling(move)) {
+	    result.addCastle();
+	}
+	if (PackedMove.isPromotion(move)) {
+	    result.addPromotion();
+	}
+
+	board.makeMove(move);
+	if (board.isKingInCheck(getSideToMove())) {
+	    result.addCheck();
+	    if (!hasAnyMove()) {
+		result.addCheckmate();
+	    }
+	}
+	board.unmakeMove();
+    }
+
+    /**
+     * This method generates the legal moves of the side to move into a move list.
+     * @param moves The list that the moves are put in, it is cleared first.
+     */
+    void generateMoves(MoveList moves) {
+	moves.clear();
+	Side side = getSideToMove();
+	if (!pieceMoves) {
+	    board.generateLegalMoves(side, moves);
+	    return;
+	}
+	//The piece list changes when moves are performed so the moves are collected from a copy.
+	List<Piece> pieces = new ArrayList<>(board.getPlayerPieces(side));
+	for (Piece piece : pieces) {
+	    for (Move move : piece.getValidMoves(board, true)) {
+		moves.add(PackedMove.fromMove(move, board));
+	    }
+	}
+    }
+
+    /**
+     * This method counts the legal moves of the side to move. The board counts them from its attack masks without
+     * generating them, unless pieceMoves is set since then the pieces have to be asked for their moves.
+     * @return The amount of legal moves.
+     */
+    private int countMoves() {
+	if (pieceMoves) {
+	    MoveList moves = moveLists[0];
+	    generateMoves(moves);
+	    return moves.size();
+	}
+	return board.countLegalMoves(getSideToMove());
+    }
+
+    /**
+     * This method checks if the side to move has any legal move, in the same way as countMoves.
+     * @return True if there is at least one legal move.
+     */
+    private boolean hasAnyMove() {
+	if (pieceMoves) {
+	    return countMoves() > 0;
+	}
+	return board.hasAnyLegalMove(getSideToMove());
+    }
+
+    /**
+     * This method returns the board that the positions are counted on.
+     * @return The board.
+     */
+    Board getBoard() {
+	return board;
+    }
+
+    /**
+     * This method returns the side that is to move on the board.
+     * @return The side to move.
+     */
+    private Side getSideToMove() {
+	return board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+    }
+
+    /**
+     * This method creates one move list for every ply so that no lists are created during the search.
+     * @param depth The amount of plies.
+     */
+    private void createMoveLists(int depth) {
+	if (moveLists.length <= depth) {
+	    moveLists = new MoveList[depth + 1];
+	    for (int ply = 0; ply <= depth; ply++) {
+		moveLists[ply] = new MoveList();
+	    }
+	}
+    }
+}
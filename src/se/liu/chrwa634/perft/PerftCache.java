@@ -0,0 +1,141 @@
+package se.liu.chrwa634.perft;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a cache of perft counts so that a position that is reached by different move orders, which is called a
+ * transposition, is only counted once. A count is saved for the Zobrist key of the position and the depth it was
+ * counted to.
+ *
+ * The cache is a table with a fixed power of two amount of buckets in a single long array. Every bucket has two
+ * entries: the first entry is only replaced by a count of at least the same depth since deep counts save the most
+ * work, and the second entry is always replaced. An entry is two longs, the count with the depth in the lowest bits
+ * and the key XOR the count. The cache is shared between the threads of ParallelPerft without locks: if two threads
+ * write the same entry at once a reader could see the count of one and the key of the other, but then the key does not
+ * match and the entry is treated as missing. A count is therefore never taken from another position unless two
+ * positions have the same 64-bit key.
+ */
+public class PerftCache
+{
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int LONGS_PER_BUCKET = 2 * LONGS_PER_ENTRY;
+    private static final int BYTES_PER_LONG = 8;
+    private static final long BYTES_PER_MEGABYTE = 1L << 20;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final long MAX_NODES = (1L << (Long.SIZE - DEPTH_BITS)) - 1;
+    //The largest power of two that an array could hold.
+    private static final long MAX_LONGS = 1L << 30;
+
+    private final long[] table;
+    private final long bucketMask;
+    private final LongAdder probes;
+    private final LongAdder hits;
+
+    /**
+     * This is the constructor. The amount of buckets is the largest power of two that fits in the given memory.
+     * @param megabytes The largest amount of memory the cache may use, at least 1.
+     */
+    public PerftCache(int megabytes) {
+	if (megabytes < 1) {
+	    throw new IllegalArgumentException("The size of the perft cache must be at least 1 MB");
+	}
+	long longs = Math.min(MAX_LONGS, Long.highestOneBit(megabytes * BYTES_PER_MEGABYTE / BYTES_PER_LONG));
+	table = new long[(int) longs];
+	bucketMask = longs / LONGS_PER_BUCKET - 1;
+	probes = new LongAdder();
+	hits = new LongAdder();
+    }
+
+    /**
+     * This method looks for the count of a position.
+     * @param key The Zobrist key of the position.
+     * @param depth The depth the position should be counted to.
+     * @return The amount of nodes, or -1 if the count is not in the cache.
+     */
+    public long probe(long key, int depth) {
+	probes.increment();
+	int bucket = getBucketIndex(key);
+	for (int entry = bucket; entry < bucket + LONGS_PER_BUCKET; entry += LONGS_PER_ENTRY) {
+	    long data = table[entry + 1];
+	    long check = table[entry];
+	    if ((check ^ data) == key && (data & DEPTH_MASK) == depth) {
+		hits.increment();
+		return data >>> DEPTH_BITS;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * This method saves the count of a position. The count is put in the first entry of the bucket if it is at least
+     * as deep as the count in it, otherwise it is put in the second entry.
+     * @param key The Zobrist key of the position.
+     * @param depth The depth the position was counted to.
+     * @param nodes The amount of nodes.
+     */
+    public void store(long key, int depth, long nodes) {
+	if (nodes > MAX_NODES || depth > DEPTH_MASK) {
+	    return;
+	}
+	long data = (nodes << DEPTH_BITS) | depth;
+	int entry = getBucketIndex(key);
+	if ((table[entry + 1] & DEPTH_MASK) > depth) {
+	    entry += LONGS_PER_ENTRY;
+	}
+	table[entry] = key ^ data;
+	table[entry + 1] = data;
+    }
+
+    /**
+     * This method removes all counts and resets the hit rate.
+     */
+    public void clear() {
+	Arrays.fill(table, 0L);
+	probes.reset();
+	hits.reset();
+    }
+
+    public long getProbes() {
+	return probes.sum();
+    }
+
+    public long getHits() {
+	return hits.sum();
+    }
+
+    /**
+     * This method returns the share of the probes that found a count.
+     * @return The hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+	long probeAmount = probes.sum();
+	return probeAmount == 0 ? 0 : (double) hits.sum() / probeAmount;
+    }
+
+    /**
+     * This method returns the amount of entries that the cache could hold.
+     * @return The amount of entries.
+     */
+    public long getCapacity() {
+	return table.length / LONGS_PER_ENTRY;
+    }
+
+    /**
+     * This method returns the memory used by the table of the cache.
+     * @return The size of the table in bytes.
+     */
+    public long getMemoryBytes() {
+	return (long) table.length * BYTES_PER_LONG;
+    }
+
+    /**
+     * This method returns the index of the first long of the bucket of a key.
+     * @param key The Zobrist key of a position.
+     * @return The index in the table.
+     */
+    private int getBucketIndex(long key) {
+	return (int) (key & bucketMask) * LONGS_PER_BUCKET;
+    }
+}
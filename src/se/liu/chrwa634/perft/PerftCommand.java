@@ -0,0 +1,254 @@
+package se.liu.chrwa634.perft;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.FenParseException;
+
+import java.util.Map;
+
+/**
+ * This class is the command line entry point of perft. It loads a FEN, counts the positions at the given depth and
+ * prints the node count together with the time and the nodes per second. With --divide the count of every root move
+ * is printed and with --stats the captures, en passants, castles, promotions, checks and checkmates are printed.
+ *
+ * With --threads the positions are counted on several threads with ParallelPerft, and with --scaling the position is
+ * counted once for every power of two up to the amount of threads to see how well the counting scales. With --hash the
+ * counts of the positions are saved in a PerftCache so that transpositions are only counted once.
+ *
+ * Example: perft --fen "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1" --depth 4 --divide
+ * Example: perft --depth 6 --threads 64 --scaling
+ * Example: perft --depth 7 --threads 64 --hash 1024
+ */
+public final class PerftCommand
+{
+    private static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+    private static final long BYTES_PER_MEGABYTE = 1L << 20;
+
+    private PerftCommand() {}
+
+    public static void main(String[] args) {
+	Options options = createOptions();
+	CommandLine commandLine;
+	try {
+	    commandLine = new DefaultParser().parse(options, args);
+	} catch (ParseException e) {
+	    System.err.println(e.getMessage());
+	    printHelp(options);
+	    System.exit(1);
+	    return;
+	}
+	if (commandLine.hasOption("help")) {
+	    printHelp(options);
+	    return;
+	}
+	if (!commandLine.hasOption("depth")) {
+	    System.err.println("Missing required option: depth");
+	    printHelp(options);
+	    System.exit(1);
+	    return;
+	}
+
+	String fen = commandLine.getOptionValue("fen", START_POSITION);
+	int depth;
+	try {
+	    depth = Integer.parseInt(commandLine.getOptionValue("depth"));
+	} catch (NumberFormatException e) {
+	    System.err.println("The depth must be a number: " + commandLine.getOptionValue("depth"));
+	    System.exit(1);
+	    return;
+	}
+
+	Board board = new Board();
+	try {
+	    board.loadFen(fen);
+	} catch (FenParseException e) {
+	    System.err.println(e.getMessage());
+	    System.exit(1);
+	    return;
+	}
+
+	boolean statistics = commandLine.hasOption("stats");
+	boolean pieceMoves = commandLine.hasOption("piece-moves");
+	int threads;
+	int splitPlies;
+	int hashMegabytes;
+	try {
+	    threads = Integer.parseInt(commandLine.getOptionValue("threads", "1"));
+	    splitPlies = Integer.parseInt(commandLine.getOptionValue("split", String.valueOf(ParallelPerft.DEFAULT_SPLIT_PLIES)));
+	    hashMegabytes = Integer.parseInt(commandLine.getOptionValue("hash", "0"));
+	} catch (NumberFormatException e) {
+	    System.err.println("The threads, the split plies and the hash size must be numbers");
+	    System.exit(1);
+	    return;
+	}
+	if (threads < 1 || splitPlies < 1 || hashMegabytes < 0) {
+	    System.err.println("The threads and the split plies must be at least 1 and the hash size can not be negative");
+	    System.exit(1);
+	    return;
+	}
+	if (hashMegabytes > 0 && statistics) {
+	    System.err.println("The hash is not used with --stats since it only holds the amount of nodes");
+	}
+
+	if (commandLine.hasOption("scaling")) {
+	    printScaling(board, depth, statistics, pieceMoves, threads, splitPlies, hashMegabytes);
+	    return;
+	}
+
+	PerftCache cache = hashMegabytes > 0 ? new PerftCache(hashMegabytes) : null;
+
+	long startTime = System.nanoTime();
+	PerftResult result;
+	if (commandLine.hasOption("divide") && depth > 0) {
+	    result = new PerftResult();
+	    Map<String, PerftResult> results = threads == 1
+					       ? new Perft(board, statistics, pieceMoves, cache).divide(depth)
+					       : new ParallelPerft(board, statistics, pieceMoves, threads, splitPlies, cache).divide(depth);
+	    for (Map.Entry<String, PerftResult> entry : results.entrySet()) {
+		System.out.println(entry.getKey() + ": " + entry.getValue().getNodes());
+		result.add(entry.getValue());
+	    }
+	    System.out.println();
+	} else if (threads == 1) {
+	    result = new Perft(board, statistics, pieceMoves, cache).run(depth);
+	} else {
+	    result = new ParallelPerft(board, statistics, pieceMoves, threads, splitPlies, cache).run(depth);
+	}
+	long elapsedTime = System.nanoTime() - startTime;
+
+	printResult(result, statistics, elapsedTime);
+	if (cache != null && !statistics) {
+	    printCache(cache);
+	}
+    }
+
+    /**
+     * This method prints how large the cache is and how often it had the count of a position.
+     * @param cache The cache of a perft run.
+     */
+    private static void printCache(PerftCache cache) {
+	System.out.println("Hash: " + cache.getMemoryBytes() / BYTES_PER_MEGABYTE + " MB, " + cache.getCapacity() + " entries");
+	System.out.println(String.format("Hash hits: %d of %d probes (%.1f%%)", cache.getHits(), cache.getProbes(),
+					 100 * cache.getHitRate()));
+    }
+
+    /**
+     * This method counts the same position with 1, 2, 4 and so on threads up to the given amount and prints how much
+     * faster every run was than the run on one thread. The efficiency is the speedup divided by the amount of threads,
+     * so 100 % means that every thread added as much as the first one. The node counts of all runs must be the same,
+     * otherwise the counting on several threads is broken and the program exits.
+     * @param board The board with the position.
+     * @param depth The amount of plies.
+     * @param statistics True if the captures, checks and so on should be counted.
+     * @param pieceMoves True if the moves should be generated with Piece.getValidMoves.
+     * @param maxThreads The largest amount of threads.
+     * @param splitPlies The amount of plies that are split into tasks.
+     * @param hashMegabytes The size of the cache, every run gets a new cache, or 0 if no cache should be used.
+     */
+    private static void printScaling(Board board, int depth, boolean statistics, boolean pieceMoves, int maxThreads,
+				     int splitPlies, int hashMegabytes)
+    {
+	System.out.println(String.format("%8s %12s %14s %8s %11s", "Threads", "Time (ms)", "NPS", "Speedup", "Efficiency"));
+	long singleThreadTime = 0;
+	long nodes = -1;
+	for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+	    PerftCache cache = hashMegabytes > 0 ? new PerftCache(hashMegabytes) : null;
+	    ParallelPerft perft = new ParallelPerft(board, statistics, pieceMoves, threads, splitPlies, cache);
+	    long startTime = System.nanoTime();
+	    PerftResult result = perft.run(depth);
+	    long elapsedTime = Math.max(1, System.nanoTime() - startTime);
+	    if (nodes == -1) {
+		nodes = result.getNodes();
+		singleThreadTime = elapsedTime;
+	    } else if (nodes != result.getNodes()) {
+		System.err.println("The node count with " + threads + " threads is " + result.getNodes() + " but it was " +
+				   nodes + " with one thread");
+		System.exit(1);
+		return;
+	    }
+	    double speedup = (double) singleThreadTime / elapsedTime;
+	    System.out.println(String.format("%8d %12d %14d %8.2f %10.1f%%", threads, elapsedTime / NANOS_PER_MILLISECOND,
+					     nodes * NANOS_PER_SECOND / elapsedTime, speedup, 100 * speedup / threads));
+	}
+	System.out.println("Nodes: " + nodes);
+    }
+
+    /**
+     * This method returns the next amount of threads of the scaling report, which is the double of the current amount
+     * but never more than the largest amount, so the largest amount is always measured.
+     * @param threads The current amount of threads.
+     * @param maxThreads The largest amount of threads.
+     * @return The next amount of threads, which is more than the largest amount after the largest amount.
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+	if (threads == maxThreads) {
+	    return maxThreads + 1;
+	}
+	return Math.min(threads * 2, maxThreads);
+    }
+
+    /**
+     * This method prints the counts of a perft run and how fast it was.
+     * @param result The counts of the run.
+     * @param statistics True if the captures, checks and so on were counted.
+     * @param elapsedTime The time of the run in nanoseconds.
+     */
+    private static void printResult(PerftResult result, boolean statistics, long elapsedTime) {
+	System.out.println("Nodes: " + result.getNodes());
+	if (statistics) {
+	    System.out.println("Captures: " + result.getCaptures());
+	    System.out.println("En passants: " + result.getEnPassants());
+	    System.out.println("Castles: " + result.getCastles());
+	    System.out.println("Promotions: " + result.getPromotions());
+	    System.out.println("Checks: " + result.getChecks());
+	    System.out.println("Checkmates: " + result.getCheckmates());
+	}
+	System.out.println("Time: " + elapsedTime / NANOS_PER_MILLISECOND + " ms");
+	long nodesPerSecond = elapsedTime == 0 ? 0 : result.getNodes() * NANOS_PER_SECOND / elapsedTime;
+	System.out.println("NPS: " + nodesPerSecond);
+    }
+
+    /**
+     * This method creates the command line options of perft.
+     * @return The options.
+     */
+    private static Options createOptions() {
+	Options options = new Options();
+	options.addOption(Option.builder("f").longOpt("fen").hasArg().argName("FEN")
+				.desc("the position to count from, the start position if it is left out").build());
+	options.addOption(Option.builder("d").longOpt("depth").hasArg().argName("PLIES")
+				.desc("the amount of plies to count").build());
+	options.addOption(Option.builder().longOpt("divide")
+				.desc("print the node count of every root move").build());
+	options.addOption(Option.builder("s").longOpt("stats")
+				.desc("count captures, en passants, castles, promotions, checks and checkmates").build());
+	options.addOption(Option.builder("p").longOpt("piece-moves")
+				.desc("generate the moves with Piece.getValidMoves like the GUI").build());
+	options.addOption(Option.builder("t").longOpt("threads").hasArg().argName("THREADS")
+				.desc("the amount of threads to count with, 1 if it is left out").build());
+	options.addOption(Option.builder().longOpt("split").hasArg().argName("PLIES")
+				.desc("the amount of plies from the root that are split between the threads, " +
+				      ParallelPerft.DEFAULT_SPLIT_PLIES + " if it is left out").build());
+	options.addOption(Option.builder().longOpt("hash").hasArg().argName("MB")
+				.desc("the size of the cache of counted positions, no cache if it is left out").build());
+	options.addOption(Option.builder().longOpt("scaling")
+				.desc("count with 1, 2, 4 and so on up to THREADS threads and print the speedup").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("print this help").build());
+	return options;
+    }
+
+    /**
+     * This method prints how perft is used.
+     * @param options The command line options.
+     */
+    private static void printHelp(Options options) {
+	new HelpFormatter().printHelp("perft --depth PLIES [--fen FEN] [--divide] [--stats] [--piece-moves] [--threads THREADS] [--split PLIES] [--hash MB] [--scaling]", options);
+    }
+}
@@ -0,0 +1,87 @@
+package se.liu.chrwa634.perft;
+
+/**
+ * This class holds the counts of a perft run. The nodes are the positions at the last depth and the other counts tell
+ * how many of the moves that led to those positions were captures, en passants, castling moves and promotions, and how
+ * many of the positions are check or checkmate. The counts are the same as in the published perft tables.
+ */
+public class PerftResult
+{
+    private long nodes = 0;
+    private long captures = 0;
+    private long enPassants = 0;
+    private long castles = 0;
+    private long promotions = 0;
+    private long checks = 0;
+    private long checkmates = 0;
+
+    /**
+     * This method adds the counts of another result to this result.
+     * @param result The result that will be added.
+     */
+    public void add(PerftResult result) {
+	nodes += result.nodes;
+	captures += result.captures;
+	enPassants += result.enPassants;
+	castles += result.castles;
+	promotions += result.promotions;
+	checks += result.checks;
+	checkmates += result.checkmates;
+    }
+
+    public void addNodes(long amount) {
+	nodes += amount;
+    }
+
+    public void addCapture() {
+	captures++;
+    }
+
+    public void addEnPassant() {
+	enPassants++;
+    }
+
+    public void addCastle() {
+	castles++;
+    }
+
+    public void addPromotion() {
+	promotions++;
+    }
+
+    public void addCheck() {
+	checks++;
+    }
+
+    public void addCheckmate() {
+	checkmates++;
+    }
+
+    public long getNodes() {
+	return nodes;
+    }
+
+    public long getCaptures() {
+	return captures;
+    }
+
+    public long getEnPassants() {
+	return enPassants;
+    }
+
+    public long getCastles() {
+	return castles;
+    }
+
+    public long getPromotions() {
+	return promotions;
+    }
+
+    public long getChecks() {
+	return checks;
+    }
+
+    public long getCheckmates() {
+	return checkmates;
+    }
+}
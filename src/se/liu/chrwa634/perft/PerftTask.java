@@ -0,0 +1,78 @@
+package se.liu.chrwa634.perft;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class is a fork-join task that counts the positions below one position. The position is given as a FEN so the
+ * task could be run on any worker, which loads it into the board of that worker. As long as there are plies left to
+ * split the task makes one subtask for every legal move and waits for them, otherwise it counts the positions itself
+ * with the Perft of the worker.
+ *
+ * The board of the worker is only used before the subtasks are forked and after that it is never touched again. This
+ * matters since a worker that waits for a subtask could run another task in the meantime and that task loads its own
+ * position into the same board.
+ */
+class PerftTask extends RecursiveTask<PerftResult>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final ParallelPerft parallelPerft;
+    private final String fen;
+    private final int depth;
+    private final int splitPlies;
+
+    PerftTask(ParallelPerft parallelPerft, String fen, int depth, int splitPlies) {
+	this.parallelPerft = parallelPerft;
+	this.fen = fen;
+	this.depth = depth;
+	this.splitPlies = splitPlies;
+    }
+
+    @Override protected PerftResult compute() {
+	Perft perft = parallelPerft.getWorkerPerft();
+	Board board = perft.getBoard();
+	board.loadFen(fen);
+	//A task at depth 1 is not split since the statistics of the last ply are counted by the Perft.
+	if (splitPlies <= 0 || depth <= 1) {
+	    return perft.run(depth);
+	}
+
+	List<PerftTask> subtasks = createSubtasks(parallelPerft, perft, depth - 1, splitPlies - 1);
+	invokeAll(subtasks);
+	PerftResult result = new PerftResult();
+	for (PerftTask subtask : subtasks) {
+	    result.add(subtask.join());
+	}
+	return result;
+    }
+
+    /**
+     * This method makes one task for every legal move of the position that is loaded on the board of a Perft. The
+     * position after every move is written as a FEN and the move is taken back so the board is the same afterwards.
+     * @param parallelPerft The parallel perft that the subtasks belong to.
+     * @param perft The Perft whose board has the position loaded.
+     * @param depth The depth of the subtasks.
+     * @param splitPlies The amount of plies that the subtasks may split further.
+     * @return The subtasks in the order the moves were generated.
+     */
+    static List<PerftTask> createSubtasks(ParallelPerft parallelPerft, Perft perft, int depth, int splitPlies) {
+	Board board = perft.getBoard();
+	MoveList moves = new MoveList();
+	perft.generateMoves(moves);
+	List<PerftTask> subtasks = new ArrayList<>(moves.size());
+	StringBuilder fen = new StringBuilder();
+	for (int index = 0; index < moves.size(); index++) {
+	    board.makeMove(moves.get(index));
+	    fen.setLength(0);
+	    board.appendFen(fen);
+	    board.unmakeMove();
+	    subtasks.add(new PerftTask(parallelPerft, fen.toString(), depth, splitPlies));
+	}
+	return subtasks;
+    }
+}
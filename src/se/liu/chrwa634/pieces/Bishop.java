@@ -3,8 +3,6 @@ package se.liu.chrwa634.pieces;
 import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.Move;
 
-import java.awt.*;
-import java.net.URL;
 import java.util.List;
 
 /**
@@ -13,19 +11,15 @@ import java.util.List;
  */
 public class Bishop extends Piece
 {
-    public Bishop(Color color, URL imageURL) {
-	super(color, PieceType.BISHOP, imageURL);
+    public Bishop(Side color) {
+	super(color, PieceType.BISHOP);
     }
 
-    @Override public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(Board board) {
 	int file = square.getFile();
 	int rank = square.getRank();
 
-	List<Move> validMoves = getDiagonalMoves(file, rank, board);
-	if (removeCheckMove) {
-	    validMoves = board.removeInvalidMove(validMoves);
-	}
-	return validMoves;
+	return getDiagonalMoves(file, rank, board);
     }
 
     @Override public boolean canDeliverMateAlone() {
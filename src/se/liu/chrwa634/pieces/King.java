@@ -5,8 +5,6 @@ import se.liu.chrwa634.main.CastlingRight;
 import se.liu.chrwa634.main.Move;
 import se.liu.chrwa634.main.Square;
 
-import java.awt.*;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,8 +17,8 @@ import static java.lang.Math.abs;
 public class King extends Piece
 {
 
-    public King(Color color, URL imageURL) {
-        super(color, PieceType.KING, imageURL);
+    public King(Side color) {
+        super(color, PieceType.KING);
     }
 
     @Override public void move(Move move, Board board, boolean isRealMove) {
@@ -38,8 +36,7 @@ public class King extends Piece
     }
 
     @Override public boolean isInCheck() {
-        Color oppositeColor = color.equals(Color.WHITE) ? Color.BLACK : Color.WHITE;
-        return square.isAttacked(oppositeColor);
+        return square.isAttacked(color.getOpposite());
     }
 
     @Override public boolean canDeliverMateAlone() {
@@ -47,11 +44,12 @@ public class King extends Piece
     }
 
     /**
-     * This method return a list of squares in which the king could move to.
+     * This method return a list of squares in which the king could move to. The castling moves are not included
+     * because they depend on the squares being attacked, they are generated by the move generator of the board.
      * @param board The board where the king is currenly placed.
      * @return A list of squares in which the king could move to.
      */
-    @Override public List<Move> getValidMoves(final Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(final Board board) {
         int rank = square.getRank();
         int file = square.getFile();
         List<Move> validMoves = new ArrayList<>();
@@ -66,29 +64,9 @@ public class King extends Piece
                 }
             }
         }
-
-        if (removeCheckMove) {
-            validMoves = board.removeInvalidMove(validMoves);
-            validMoves.addAll(getCastlingMoves(board));
-        }
         return validMoves;
     }
 
-    @Override public void draw(final Graphics graphics) {
-        Graphics2D g2D = (Graphics2D)graphics;
-        int squareSize = Square.getSquareSize();
-        int file = square.getFile() * squareSize;
-        int rank = square.getRank() * squareSize;
-
-        if (isInCheck()) {
-            g2D.setColor(Color.RED);
-            g2D.drawOval(file, rank, squareSize, squareSize);
-            g2D.fillOval(file, rank, squareSize, squareSize);
-        }
-        super.draw(graphics);
-
-    }
-
     /**
      * This method checks if a given move is a long castle.
      * @param move The move that will be checked.
@@ -130,8 +108,8 @@ public class King extends Piece
      * @param board The baord where the castling rights will be updated.
      */
     private void updateCastlingRights(Board board) {
-        CastlingRight longCastle = color.equals(Color.WHITE) ? CastlingRight.WHITE_LONG : CastlingRight.BLACK_LONG;
-        CastlingRight shortCastle = color.equals(Color.WHITE) ? CastlingRight.WHITE_SHORT : CastlingRight.BLACK_SHORT;
+        CastlingRight longCastle = color == Side.WHITE ? CastlingRight.WHITE_LONG : CastlingRight.BLACK_LONG;
+        CastlingRight shortCastle = color == Side.WHITE ? CastlingRight.WHITE_SHORT : CastlingRight.BLACK_SHORT;
 
         board.setCastlingRight(longCastle, false);
         board.setCastlingRight(shortCastle, false);
@@ -149,64 +127,4 @@ public class King extends Piece
         final int twoSquareMove = 2;
         return abs(starting.getFile() - destination.getFile()) >= twoSquareMove;
     }
-
-    /**
-     * This method checks castling moves that the king could do.
-     * @param board The board in which the method check the castling rights on.
-     * @return A list of squares in which the king could move to.
-     */
-    private List<Move> getCastlingMoves(Board board) {
-        int rank = square.getRank();
-        int file = square.getFile();
-        Color oppositeColor = getOppositeColor();
-
-        Square e1 = board.getSquare(File.E, Rank.ONE);
-        Square e8 = board.getSquare(File.E, Rank.EIGHT);
-
-        List<Move> validMoves = new ArrayList<>();
-        //check if the king is on its starting square
-        if (square.equals(e1) || square.equals(e8)) {
-            CastlingRight shortCastling = color.equals(Color.WHITE) ? CastlingRight.WHITE_SHORT : CastlingRight.BLACK_SHORT;
-            if (board.getCastlingRight(shortCastling) && !isInCheck()) {
-                // Check if the G and F files are not occupied or attacked...
-                Square fileF = board.getSquare(File.F, rank);
-                Square fileG = board.getSquare(File.G, rank);
-                Square fileH = board.getSquare(File.H, rank);
-                if (!fileF.isOccupied() && !fileG.isOccupied() && fileH.isOccupied()) {
-                    int directionRightValue = Direction.RIGHT.getDirectionalValue();
-                    if (!board.isSquareAttacked(file + directionRightValue, rank, oppositeColor)
-                        && !board.isSquareAttacked(file + (2 * directionRightValue), rank, oppositeColor)) {
-                        // If they are not attacked or occupied than it is possible to castle short.
-                        validMoves.add(new Move(square, fileG));
-                    }
-                }
-            }
-
-            CastlingRight longCastling = color.equals(Color.WHITE) ? CastlingRight.WHITE_LONG: CastlingRight.BLACK_LONG;
-            if (board.getCastlingRight(longCastling) && !isInCheck()) {
-                // Check if the C and D files are not occupied or attacked...
-                Square filleD = board.getSquare(File.D, rank);
-                Square fileC = board.getSquare(File.C, rank);
-                Square fileA = board.getSquare(File.A, rank);
-                if (!filleD.isOccupied() && !fileC.isOccupied() && fileA.isOccupied()) {
-                    int directionLeftValue = Direction.LEFT.getDirectionalValue();
-                    if (!board.isSquareAttacked(file + directionLeftValue, rank, oppositeColor)
-                        && !board.isSquareAttacked(file + (2 * directionLeftValue), rank, oppositeColor)) {
-                        // If they are not attacked or occupied than it is possible to castle long.
-                        validMoves.add(new Move(square, fileC));
-
-                    }
-                }
-            }
-        }
-        return validMoves;
-    }
-
-    /**
-     * This method returns the opposite color of this piece.
-     * @return The opposite color.
-     */
-    private Color getOppositeColor() {
-        return color.equals(Color.WHITE) ? Color.BLACK : Color.WHITE;
-    }
 }
@@ -4,8 +4,6 @@ import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.Move;
 import se.liu.chrwa634.main.Square;
 
-import java.awt.*;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,11 +13,11 @@ import java.util.List;
  */
 public class Knight extends Piece
 {
-    public Knight(Color color, URL imageURL) {
-	super(color, PieceType.KNIGHT, imageURL);
+    public Knight(Side color) {
+	super(color, PieceType.KNIGHT);
     }
 
-    @Override public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(Board board) {
         final int searchRadius = 2;
         int rank = square.getRank();
         int file = square.getFile();
@@ -38,10 +36,6 @@ public class Knight extends Piece
                 }
             }
         }
-
-        if (removeCheckMove) {
-            validMoves = board.removeInvalidMove(validMoves);
-        }
         return validMoves;
     }
 
@@ -4,9 +4,6 @@ import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.Move;
 import se.liu.chrwa634.main.Square;
 
-import javax.swing.*;
-import java.awt.*;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,13 +15,13 @@ import static java.lang.Math.abs;
  */
 public class Pawn extends Piece
 {
-    public Pawn(Color color, URL imageURL) {
-        super(color, PieceType.PAWN, imageURL);
+    public Pawn(Side color) {
+        super(color, PieceType.PAWN);
     }
 
     @Override public void move(Move move, Board board, boolean isRealMove) {
         super.move(move, board, isRealMove);
-        int direction = color.equals(Color.WHITE) ? -1 : 1;
+        int direction = color == Side.WHITE ? -1 : 1;
 
         Square startingSquare = move.getStartingSquare(board);
         Square destinationSquare = move.getDestinationSquare(board);
@@ -71,41 +68,28 @@ public class Pawn extends Piece
     }
 
     /**
-     * This method returns all the valid move of the pawn.
+     * This method returns all the possible move of the pawn.
      * @param board The baord where the pawn is currently on.
      * @return A list of squares in which the pawn could move to.
      */
-    @Override public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(Board board) {
         int file = square.getFile();
         int rank = square.getRank();
-        Direction direction = color.equals(Color.WHITE) ? Direction.UP : Direction.DOWN;
+        Direction direction = color == Side.WHITE ? Direction.UP : Direction.DOWN;
 
         List<Move> validMoves = getForwardMoves(file, rank, direction, board);
         validMoves.addAll(getDiagonalCapture(file, rank, direction, board));
-
-        if (removeCheckMove) {
-            validMoves = board.removeInvalidMove(validMoves);
-        }
-
         return validMoves;
     }
 
     /**
-     * This method ask the user to choose want they want to promote their pawn to and afterwards put that desired
-     * piece into the board on the square that the pawn was.
+     * This method asks the promotion chooser of the board what the pawn should promote to and afterwards put that
+     * desired piece into the board on the square that the pawn was.
      * @param board The board in which the promotion will be perfomed.
      */
     public void promotePawn(Board board) {
-        Object[] pieces = {"Queen", "Rook", "Bishop", "Knight"};
-        int i = JOptionPane.showOptionDialog(
-                null, "What do you want to promote to?", "Promotion",
-                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE, null, pieces,
-                "Queen");
-
         PieceFactory pf = new PieceFactory();
-        PieceType[] pieceTypes = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
-
-        Piece piece = pf.getPiece(pieceTypes[i], color);
+        Piece piece = pf.getPiece(board.choosePromotion(color), color);
         board.removePiece(square);
         board.putNewPiece(piece, square);
     }
@@ -1,13 +1,12 @@
 package se.liu.chrwa634.pieces;
 
+import se.liu.chrwa634.main.AttackTables;
+import se.liu.chrwa634.main.BitboardPosition;
 import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.CastlingRight;
 import se.liu.chrwa634.main.Move;
 import se.liu.chrwa634.main.Square;
 
-import javax.swing.*;
-import java.awt.*;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,25 +16,37 @@ import java.util.List;
  */
 public abstract class Piece
 {
-    protected final Color color;
+    protected final Side color;
     protected Square square = null;
-    protected ImageIcon img;
 
     protected  PieceType pieceType;
 
-    protected Piece(Color color, PieceType pieceType, URL imageURL) {
+    protected Piece(Side color, PieceType pieceType) {
         this.color = color;
         this.pieceType = pieceType;
-        img = new ImageIcon(imageURL);
     }
 
     /**
      * This method returns all the possible moves that the piece could move to. If the removeCheckMove
-     * is true than the method would remove every move that would lead to the king being in check.
+     * is true than only the legal moves are returned, these are generated by the move generator of the board
+     * which never leads to the king being in check.
      * @param board The board in which the piece will move.
      * @return A list of squares that the piece could move to.
      */
-    public abstract List<Move> getValidMoves(Board board, boolean removeCheckMove);
+    public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+        if (removeCheckMove) {
+            return board.getLegalMoves(this);
+        }
+        return getPossibleMoves(board);
+    }
+
+    /**
+     * This method returns all the moves that the piece could move to without considering if the king
+     * would be in check after the move.
+     * @param board The board in which the piece will move.
+     * @return A list of squares that the piece could move to.
+     */
+    protected abstract List<Move> getPossibleMoves(Board board);
 
     /**
      * This method gets the piece fen annotation.
@@ -44,7 +55,7 @@ public abstract class Piece
     public char getFenChar() {
         char fenChar = getPieceType().getFen();
 
-        if (color.equals(Color.WHITE)) {
+        if (color == Side.WHITE) {
             return Character.toUpperCase(fenChar);
 	} else {
             return fenChar;
@@ -79,7 +90,7 @@ public abstract class Piece
      * This method returns the color of a piece.
      * @return The color of the piece.
      */
-    public Color getColor() {
+    public Side getColor() {
 	return color;
     }
 
@@ -138,103 +149,50 @@ public abstract class Piece
     }
 
     /**
-     * This method checks all the possible moves of a given direction. For exampel if fileDirection and rankDirection is one
-     * than we check a square that is one unit from the starting square. The starting square is the square with the given coordinate
-     * file and rank. In the exampel we would check every single move that is diognaly down to the right of the starting square.
-     * If fileDirection and rankDirection is both 0 then this method just returns an emptyList.
-     * This method is implemented in a way that it keeps going until it gets outside of the board or find another piece.
-     * @param file The file coordinate of the starting square.
-     * @param rank The rank coordinate of the starting square.
-     * @param fileDirection The direction that it moves in the file every loop.
-     * @param rankDirection The direction that it move in the rank every loop.
-     * @param board The board that the method checks on.
-     * @return Returns all the possible square to move to.
-     */
-    public List<Move> getPossibleDirectionalMoves(int file, int rank, int fileDirection, int rankDirection, Board board) {
-
-        //If someone calls this method with the fileDirection and rankDirection is 0 then we just return an empty list
-	//otherwise the method will be stuck on the while loop.
-        if (fileDirection == 0 && rankDirection == 0) {
-            return new ArrayList<>();
-	}
-
-	int checkFile = file + fileDirection;
-	int checkRank = rank + rankDirection;
-	List<Move> validMoves = new ArrayList<>();
-
-	while(board.isSquareInsideBoard(checkFile, checkRank)) {
-	    Square square = board.getSquare(checkFile, checkRank);
-	    if (square.isOccupied()) {
-		if (isEnemyPiece(square)) {
-		    validMoves.add(new Move(this.square, square));
-		}
-		break;
-	    } else {
-		validMoves.add(new Move(this.square, square));
-		checkFile += fileDirection;
-		checkRank += rankDirection;
-	    }
-	}
-	return validMoves;
-    }
-
-    /**
-     * This method return all the valid moves for all of the horizontal moves. This is done by calling
-     * the getPossibleDirectionalMoves method with different fileDirection and rankDirection values
-     * that represent different directions.
-     * @param rank The starting squares rank.
+     * This method return all the valid moves for all of the horizontal moves. The attacked squares are looked up
+     * in the rook attack table with the occupancy of the board.
      * @param file The starting squares file.
+     * @param rank The starting squares rank.
      * @param board The board which will be checked on.
      * @return A list of squares that the piece could move to.
      */
-    public List<Move> getHorizontalMoves(int rank, int file, Board board) {
-	//down
-	List<Move> validMoves = getPossibleDirectionalMoves(rank, file, 1, 0,board);
-	//up
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file,  -1, 0,board));
-	//right
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file, 0, 1,board));
-	//left
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file, 0, -1,board));
-	return validMoves;
+    public List<Move> getHorizontalMoves(int file, int rank, Board board) {
+	int squareIndex = BitboardPosition.getSquareIndex(file, rank);
+	long attacks = AttackTables.getRookAttacks(squareIndex, board.getBitboards().getOccupancy());
+	return getMovesToSquares(attacks, board);
     }
 
     /**
-     * This method return all the alid mvoe for all of the diagonal moves. This is done by calling
-     * the getPossibleDirectionalMoves method with different fileDirection and rankDirection values that
-     * represent different direcctions.
-     * @param rank The starting squares rank.
+     * This method return all the valid moves for all of the diagonal moves. The attacked squares are looked up
+     * in the bishop attack table with the occupancy of the board.
      * @param file The starting squares file.
+     * @param rank The starting squares rank.
      * @param board The board which will be checked on.
-     * @return A list of squares that the piec oudl move to.
+     * @return A list of squares that the piece could move to.
      */
-    public List<Move> getDiagonalMoves(int rank, int file, Board board) {
-        //down right
-	List<Move> validMoves = getPossibleDirectionalMoves(rank, file, 1, 1,board);
-	//up right
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file, 1, -1,board));
-	//down left
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file, -1, 1,board));
-	//up left
-	validMoves.addAll(getPossibleDirectionalMoves(rank, file, -1, -1,board));
-	return validMoves;
+    public List<Move> getDiagonalMoves(int file, int rank, Board board) {
+	int squareIndex = BitboardPosition.getSquareIndex(file, rank);
+	long attacks = AttackTables.getBishopAttacks(squareIndex, board.getBitboards().getOccupancy());
+	return getMovesToSquares(attacks, board);
     }
 
     /**
-     * This method draws the piece to a graphics object.
-     * @param graphics The graphics which the piece will be drawn to.
+     * This method creates a move to every square of a bitboard that is not occupied by a friendly piece.
+     * @param targets A bitboard of the squares the piece attacks.
+     * @param board The board which the piece is on.
+     * @return A list of the moves.
      */
-    public void draw(Graphics graphics) {
-        Graphics2D g2d = (Graphics2D) graphics;
-
-	int squareSize = Square.getSquareSize();
-	int file = square.getFile() * squareSize;
-	int rank = square.getRank() * squareSize;
-
-	Image pieceImage = img.getImage();
-	img = new ImageIcon(pieceImage.getScaledInstance(squareSize, squareSize, Image.SCALE_SMOOTH));
-
-	g2d.drawImage(img.getImage(), file, rank, null);
+    protected List<Move> getMovesToSquares(long targets, Board board) {
+	long friendly = board.getBitboards().getOccupancy(BitboardPosition.getColorIndex(color));
+	long destinations = targets & ~friendly;
+	List<Move> validMoves = new ArrayList<>(Long.bitCount(destinations));
+	while (destinations != 0) {
+	    int squareIndex = Long.numberOfTrailingZeros(destinations);
+	    destinations &= destinations - 1;
+	    Square destinationSquare = board.getSquare(BitboardPosition.getFile(squareIndex), BitboardPosition.getRank(squareIndex));
+	    validMoves.add(new Move(square, destinationSquare));
+	}
+	return validMoves;
     }
 
     /**
@@ -0,0 +1,15 @@
+package se.liu.chrwa634.pieces;
+
+/**
+ * This interface is used by a pawn to ask which piece it should promote to. The rules of the game do not know how
+ * the choice is made, the GUI could for example ask the user with a dialog.
+ */
+public interface PromotionChooser
+{
+    /**
+     * This method chooses the piece that a pawn promotes to.
+     * @param side The side of the pawn that promotes.
+     * @return The piece type of the new piece.
+     */
+    public PieceType choosePromotion(Side side);
+}
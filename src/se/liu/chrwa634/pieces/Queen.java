@@ -3,8 +3,6 @@ package se.liu.chrwa634.pieces;
 import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.Move;
 
-import java.awt.*;
-import java.net.URL;
 import java.util.List;
 
 /**
@@ -13,21 +11,16 @@ import java.util.List;
  */
 public class Queen extends Piece
 {
-    public Queen(Color color, URL imageURL) {
-	super(color, PieceType.QUEEN, imageURL);
+    public Queen(Side color) {
+	super(color, PieceType.QUEEN);
     }
 
-    @Override public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(Board board) {
 	int file = square.getFile();
 	int rank = square.getRank();
 
 	List<Move> validMoves = getHorizontalMoves(file, rank, board);
 	validMoves.addAll(getDiagonalMoves(file, rank, board));
-
-	if (removeCheckMove) {
-	    validMoves = board.removeInvalidMove(validMoves);
-	}
-
 	return validMoves;
     }
 }
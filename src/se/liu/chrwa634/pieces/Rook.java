@@ -3,13 +3,11 @@ package se.liu.chrwa634.pieces;
 import se.liu.chrwa634.main.Board;
 import se.liu.chrwa634.main.Move;
 
-import java.awt.*;
-import java.net.URL;
 import java.util.List;
 
 /**
  * This is a class represent a rook in chess. The class extends the piece abstract class.
- * To create a rook you need to give a Color either black or white.
+ * To create a rook you need to give a Side either black or white.
  */
 public class Rook extends Piece
 {
@@ -17,8 +15,8 @@ public class Rook extends Piece
      * The constructor takes in color as an argument for setting the color of the piece.
      * @param color The color of the piece. It is either black or white.
      */
-    public Rook(Color color, URL imageURL) {
-	super(color, PieceType.ROOK, imageURL);
+    public Rook(Side color) {
+	super(color, PieceType.ROOK);
     }
 
     @Override public void move(Move move, Board board, boolean isRealMove) {
@@ -26,16 +24,11 @@ public class Rook extends Piece
         updateCastlingRights(move, board);
     }
 
-    @Override public List<Move> getValidMoves(Board board, boolean removeCheckMove) {
+    @Override protected List<Move> getPossibleMoves(Board board) {
         int file = square.getFile();
         int rank = square.getRank();
 
-        List<Move> validMoves = getHorizontalMoves(file, rank, board);
-
-        if (removeCheckMove) {
-            validMoves = board.removeInvalidMove(validMoves);
-        }
-        return validMoves;
+        return getHorizontalMoves(file, rank, board);
     }
 
     @Override public void updateCastlingRights(Move move, Board board) {
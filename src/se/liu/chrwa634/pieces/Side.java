@@ -0,0 +1,19 @@
+package se.liu.chrwa634.pieces;
+
+/**
+ * This enum represents the two sides of a chess game. It is used for the color of the pieces and the squares instead
+ * of java.awt.Color so that the rules of the game do not depend on AWT. The ordinal of a side is the same as its color
+ * index in BitboardPosition.
+ */
+public enum Side
+{
+    WHITE, BLACK;
+
+    /**
+     * This method returns the other side.
+     * @return BLACK if the side is WHITE, otherwise WHITE.
+     */
+    public Side getOpposite() {
+	return this == WHITE ? BLACK : WHITE;
+    }
+}
@@ -0,0 +1,154 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.BitboardPosition;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.Material;
+import se.liu.chrwa634.pieces.PieceType;
+
+/**
+ * This class gives a position a score in centipawns from the view of the side to move. The score is the material,
+ * which is read from the piece counts that the board keeps, together with a bonus for the square of every piece from
+ * a piece-square table. The tables are written from the view of white with the eighth rank first, which is the same
+ * order as the square indexes, and are mirrored for black.
+ */
+public final class Evaluator
+{
+    private static final int[] PIECE_VALUES = createPieceValues();
+    private static final int MIRROR = 56;
+
+    private static final int[] PAWN_TABLE = {
+	     0,   0,   0,   0,   0,   0,   0,   0,
+	    50,  50,  50,  50,  50,  50,  50,  50,
+	    10,  10,  20,  30,  30,  20,  10,  10,
+	     5,   5,  10,  25,  25,  10,   5,   5,
+	     0,   0,   0,  20,  20,   0,   0,   0,
+	     5,  -5, -10,   0,   0, -10,  -5,   5,
+	     5,  10,  10, -20, -20,  10,  10,   5,
+	     0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT_TABLE = {
+	   -50, -40, -30, -30, -30, -30, -40, -50,
+	   -40, -20,   0,   0,   0,   0, -20, -40,
+	   -30,   0,  10,  15,  15,  10,   0, -30,
+	   -30,   5,  15,  20,  20,  15,   5, -30,
+	   -30,   0,  15,  20,  20,  15,   0, -30,
+	   -30,   5,  10,  15,  15,  10,   5, -30,
+	   -40, -20,   0,   5,   5,   0, -20, -40,
+	   -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+	   -20, -10, -10, -10, -10, -10, -10, -20,
+	   -10,   0,   0,   0,   0,   0,   0, -10,
+	   -10,   0,   5,  10,  10,   5,   0, -10,
+	   -10,   5,   5,  10,  10,   5,   5, -10,
+	   -10,   0,  10,  10,  10,  10,   0, -10,
+	   -10,  10,  10,  10,  10,  10,  10, -10,
+	   -10,   5,   0,   0,   0,   0,   5, -10,
+	   -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+	     0,   0,   0,   0,   0,   0,   0,   0,
+	     5,  10,  10,  10,  10,  10,  10,   5,
+	    -5,   0,   0,   0,   0,   0,   0,  -5,
+	    -5,   0,   0,   0,   0,   0,   0,  -5,
+	    -5,   0,   0,   0,   0,   0,   0,  -5,
+	    -5,   0,   0,   0,   0,   0,   0,  -5,
+	    -5,   0,   0,   0,   0,   0,   0,  -5,
+	     0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN_TABLE = {
+	   -20, -10, -10,  -5,  -5, -10, -10, -20,
+	   -10,   0,   0,   0,   0,   0,   0, -10,
+	   -10,   0,   5,   5,   5,   5,   0, -10,
+	    -5,   0,   5,   5,   5,   5,   0,  -5,
+	     0,   0,   5,   5,   5,   5,   0,  -5,
+	   -10,   5,   5,   5,   5,   5,   0, -10,
+	   -10,   0,   5,   0,   0,   0,   0, -10,
+	   -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_TABLE = {
+	   -30, -40, -40, -50, -50, -40, -40, -30,
+	   -30, -40, -40, -50, -50, -40, -40, -30,
+	   -30, -40, -40, -50, -50, -40, -40, -30,
+	   -30, -40, -40, -50, -50, -40, -40, -30,
+	   -20, -30, -30, -40, -40, -30, -30, -20,
+	   -10, -20, -20, -20, -20, -20, -20, -10,
+	    20,  20,   0,   0,   0,   0,  20,  20,
+	    20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[][] PIECE_SQUARE_TABLES = createPieceSquareTables();
+
+    private Evaluator() {}
+
+    /**
+     * This method returns the score of the position on a board.
+     * @param board The board with the position.
+     * @return The score in centipawns, positive if the side to move is better.
+     */
+    public static int evaluate(Board board) {
+	int score = evaluateSide(board, BitboardPosition.WHITE) - evaluateSide(board, BitboardPosition.BLACK);
+	return board.getIsWhiteTurn() ? score : -score;
+    }
+
+    /**
+     * This method returns the value of a piece type in centipawns.
+     * @param pieceType The piece type.
+     * @return The value of the piece type.
+     */
+    public static int getPieceValue(PieceType pieceType) {
+	return PIECE_VALUES[pieceType.ordinal()];
+    }
+
+    /**
+     * This method adds up the material and the piece-square bonuses of one side.
+     * @param board The board with the position.
+     * @param colorIndex The side.
+     * @return The score of the side.
+     */
+    private static int evaluateSide(Board board, int colorIndex) {
+	Material material = board.getMaterial();
+	BitboardPosition position = board.getBitboards();
+	int mirror = colorIndex == BitboardPosition.WHITE ? 0 : MIRROR;
+	int score = 0;
+	for (PieceType pieceType : PieceType.values()) {
+	    score += material.getCount(pieceType, colorIndex) * PIECE_VALUES[pieceType.ordinal()];
+	    int[] table = PIECE_SQUARE_TABLES[pieceType.ordinal()];
+	    long pieces = position.getPieces(pieceType, colorIndex);
+	    while (pieces != 0) {
+		score += table[Long.numberOfTrailingZeros(pieces) ^ mirror];
+		pieces &= pieces - 1;
+	    }
+	}
+	return score;
+    }
+
+    /**
+     * This method creates the table of the piece values, indexed by the ordinal of the piece type.
+     * @return The piece values.
+     */
+    private static int[] createPieceValues() {
+	int[] values = new int[PieceType.values().length];
+	values[PieceType.PAWN.ordinal()] = 100;
+	values[PieceType.KNIGHT.ordinal()] = 320;
+	values[PieceType.BISHOP.ordinal()] = 330;
+	values[PieceType.ROOK.ordinal()] = 500;
+	values[PieceType.QUEEN.ordinal()] = 900;
+	values[PieceType.KING.ordinal()] = 0;
+	return values;
+    }
+
+    /**
+     * This method puts the piece-square tables in an array indexed by the ordinal of the piece type.
+     * @return The piece-square tables.
+     */
+    private static int[][] createPieceSquareTables() {
+	int[][] tables = new int[PieceType.values().length][];
+	tables[PieceType.PAWN.ordinal()] = PAWN_TABLE;
+	tables[PieceType.KNIGHT.ordinal()] = KNIGHT_TABLE;
+	tables[PieceType.BISHOP.ordinal()] = BISHOP_TABLE;
+	tables[PieceType.ROOK.ordinal()] = ROOK_TABLE;
+	tables[PieceType.QUEEN.ordinal()] = QUEEN_TABLE;
+	tables[PieceType.KING.ordinal()] = KING_TABLE;
+	return tables;
+    }
+}
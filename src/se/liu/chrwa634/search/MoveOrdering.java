@@ -0,0 +1,172 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.BitboardPosition;
+import se.liu.chrwa634.main.MoveList;
+import se.liu.chrwa634.main.PackedMove;
+
+/**
+ * This class scores the moves of a node of the search so that the moves that most likely cause a cutoff are searched
+ * first. The moves are picked by MovePicker in the following order:
+ *
+ * 1. the move of the principal variation of the last iteration and the best move from the transposition table.
+ * 2. the captures, by the most valuable victim and then by the least valuable attacker (MVV-LVA).
+ * 3. the promotions that do not capture anything.
+ * 4. the two killer moves of the ply, which are quiet moves that caused a cutoff in another node of the same ply.
+ * 5. the counter-move of the last move, which is the quiet move that last caused a cutoff after the same move.
+ * 6. the other quiet moves by their butterfly history, which adds up how deep the cutoffs of a move have been.
+ *
+ * The tables are only used by one thread, so every Search has its own MoveOrdering. The killer moves are removed when
+ * a new search starts, since the plies of the new search are different positions, while the history is halved so that
+ * the newest cutoffs count the most.
+ */
+public class MoveOrdering
+{
+    public static final int KILLERS_PER_PLY = 2;
+    private static final int COLOR_AMOUNT = 2;
+    private static final int SQUARE_AMOUNT = 64;
+    private static final int PIECE_AMOUNT = 12;
+
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int PROMOTION_SCORE = 1 << 23;
+    private static final int KILLER_SCORE = 1 << 22;
+    private static final int COUNTER_MOVE_SCORE = 1 << 21;
+    //The history of a move never reaches the counter-moves, the whole table is halved when a move gets this much.
+    private static final int MAX_HISTORY = COUNTER_MOVE_SCORE - 1;
+    //The victim is weighted so that a more valuable victim is always ordered first, whatever the attacker is.
+    private static final int VICTIM_WEIGHT = 16;
+
+    private final int[][] killers;
+    private final int[][][] history;
+    private final int[][] counterMoves;
+
+    public MoveOrdering() {
+	killers = new int[Search.MAX_PLY][KILLERS_PER_PLY];
+	history = new int[COLOR_AMOUNT][SQUARE_AMOUNT][SQUARE_AMOUNT];
+	counterMoves = new int[PIECE_AMOUNT][SQUARE_AMOUNT];
+    }
+
+    /**
+     * This method prepares the tables for a new search by removing the killer moves and halving the history.
+     */
+    public void newSearch() {
+	for (int[] plyKillers : killers) {
+	    for (int index = 0; index < KILLERS_PER_PLY; index++) {
+		plyKillers[index] = PackedMove.NO_MOVE;
+	    }
+	}
+	halveHistory();
+    }
+
+    /**
+     * This method scores the moves of a node, a higher score is searched first. The scores of the captures and the
+     * promotions are always higher than the scores of the quiet moves.
+     * @param moves The moves of the node.
+     * @param scores The array that the score of every move is written to, at the same index as the move.
+     * @param ply The distance from the root.
+     * @param previousMove The move that was played to reach the node or PackedMove.NO_MOVE at the root.
+     */
+    public void scoreMoves(MoveList moves, int[] scores, int ply, int previousMove) {
+	int counterMove = getCounterMove(previousMove);
+	for (int index = 0; index < moves.size(); index++) {
+	    scores[index] = getMoveScore(moves.get(index), ply, counterMove);
+	}
+    }
+
+    /**
+     * This method returns one of the killer moves of a ply, the first one is the newest.
+     * @param ply The distance from the root.
+     * @param index The index of the killer move, below KILLERS_PER_PLY.
+     * @return The killer move or PackedMove.NO_MOVE.
+     */
+    public int getKiller(int ply, int index) {
+	return killers[ply][index];
+    }
+
+    /**
+     * This method saves a quiet move that caused a cutoff as a killer move of the ply, as the counter-move of the last
+     * move and in the history.
+     * @param move The move that caused the cutoff.
+     * @param ply The distance from the root.
+     * @param depth The remaining depth of the node, a deeper cutoff gives more history.
+     * @param previousMove The move that was played to reach the node or PackedMove.NO_MOVE at the root.
+     */
+    public void updateCutoff(int move, int ply, int depth, int previousMove) {
+	int[] plyKillers = killers[ply];
+	if (plyKillers[0] != move) {
+	    plyKillers[1] = plyKillers[0];
+	    plyKillers[0] = move;
+	}
+	if (previousMove != PackedMove.NO_MOVE) {
+	    counterMoves[PackedMove.getPiece(previousMove)][PackedMove.getTo(previousMove)] = move;
+	}
+	int colorIndex = BitboardPosition.getColorIndex(PackedMove.getPiece(move));
+	int[] fromHistory = history[colorIndex][PackedMove.getFrom(move)];
+	int to = PackedMove.getTo(move);
+	fromHistory[to] += depth * depth;
+	if (fromHistory[to] > MAX_HISTORY) {
+	    halveHistory();
+	}
+    }
+
+    /**
+     * This method checks if a move is quiet, which means that it neither captures nor promotes.
+     * @param move The encoded move.
+     * @return True if the move is quiet.
+     */
+    public static boolean isQuiet(int move) {
+	return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    /**
+     * This method scores a move.
+     * @param move The encoded move.
+     * @param ply The distance from the root.
+     * @param counterMove The counter-move of the last move.
+     * @return The score of the move.
+     */
+    private int getMoveScore(int move, int ply, int counterMove) {
+	if (PackedMove.isCapture(move)) {
+	    int victim = Evaluator.getPieceValue(BitboardPosition.getPieceType(PackedMove.getCapturedPiece(move)));
+	    int attacker = Evaluator.getPieceValue(BitboardPosition.getPieceType(PackedMove.getPiece(move)));
+	    int promotion = PackedMove.isPromotion(move) ? Evaluator.getPieceValue(PackedMove.getPromotionPieceType(move)) : 0;
+	    return CAPTURE_SCORE + victim * VICTIM_WEIGHT - attacker + promotion;
+	}
+	if (PackedMove.isPromotion(move)) {
+	    return PROMOTION_SCORE + Evaluator.getPieceValue(PackedMove.getPromotionPieceType(move));
+	}
+	int[] plyKillers = killers[ply];
+	if (move == plyKillers[0]) {
+	    return KILLER_SCORE + 1;
+	}
+	if (move == plyKillers[1]) {
+	    return KILLER_SCORE;
+	}
+	if (move == counterMove) {
+	    return COUNTER_MOVE_SCORE;
+	}
+	int colorIndex = BitboardPosition.getColorIndex(PackedMove.getPiece(move));
+	return history[colorIndex][PackedMove.getFrom(move)][PackedMove.getTo(move)];
+    }
+
+    /**
+     * This method returns the counter-move of a move.
+     * @param previousMove The move that was played to reach the node or PackedMove.NO_MOVE.
+     * @return The counter-move or PackedMove.NO_MOVE.
+     */
+    private int getCounterMove(int previousMove) {
+	if (previousMove == PackedMove.NO_MOVE) {
+	    return PackedMove.NO_MOVE;
+	}
+	return counterMoves[PackedMove.getPiece(previousMove)][PackedMove.getTo(previousMove)];
+    }
+
+    private void halveHistory() {
+	for (int[][] colorHistory : history) {
+	    for (int[] fromHistory : colorHistory) {
+		for (int to = 0; to < SQUARE_AMOUNT; to++) {
+		    fromHistory[to] /= 2;
+		}
+	    }
+	}
+    }
+}
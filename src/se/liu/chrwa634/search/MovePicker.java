@@ -0,0 +1,224 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.MoveList;
+import se.liu.chrwa634.main.PackedMove;
+import se.liu.chrwa634.pieces.Side;
+
+/**
+ * This class hands out the moves of a node of the search one at a time, in the order of MoveOrdering, and only
+ * generates the moves when they are needed. Most nodes are cut off by one of the first moves, so generating and
+ * scoring every legal move of the node before the first one is searched is mostly wasted work. The moves are handed
+ * out in stages:
+ *
+ * 1. the move of the principal variation of the last iteration and the best move from the transposition table. These
+ * are tested against the bitboards with Board.isLegalMove when they are handed out, so nothing is generated if one of
+ * them causes a cutoff.
+ * 2. the captures and promotions, which are generated and scored on their own and picked best first.
+ * 3. the killer moves of the ply, which are tested in the same way as the moves of the first stage.
+ * 4. the quiet moves, which are generated and scored last and picked best first.
+ *
+ * A move is only handed out once, so a capture or a quiet move that was already handed out in the first or the third
+ * stage is skipped when its stage comes. The best move of a stage is picked by a selection sort that only looks
+ * through the moves that have not been handed out yet, so the moves after a cutoff are never sorted.
+ *
+ * Every ply of the search has its own MovePicker, so the picker of a node keeps its state while the moves below it are
+ * searched. In the quiescence search only the captures and promotions are handed out, unless the king is in check.
+ */
+public class MovePicker
+{
+    private static final int MAX_MOVES = 256;
+
+    private static final int PV_MOVE_STAGE = 0;
+    private static final int HASH_MOVE_STAGE = 1;
+    private static final int GENERATE_CAPTURES_STAGE = 2;
+    private static final int CAPTURES_STAGE = 3;
+    private static final int KILLERS_STAGE = 4;
+    private static final int GENERATE_QUIETS_STAGE = 5;
+    private static final int QUIETS_STAGE = 6;
+    private static final int DONE_STAGE = 7;
+
+    private final Board board;
+    private final MoveOrdering moveOrdering;
+    private final MoveList moves;
+    private final int[] scores;
+    private Side side;
+    private int ply;
+    private int pvMove;
+    private int hashMove;
+    private int previousMove;
+    private boolean capturesOnly;
+    private int stage;
+    private int index;
+    private int killerIndex;
+
+    /**
+     * This is the constructor.
+     * @param board The board that the search is made on.
+     * @param moveOrdering The tables that the moves are scored with.
+     */
+    public MovePicker(Board board, MoveOrdering moveOrdering) {
+	this.board = board;
+	this.moveOrdering = moveOrdering;
+	moves = new MoveList(MAX_MOVES);
+	scores = new int[MAX_MOVES];
+	stage = DONE_STAGE;
+    }
+
+    /**
+     * This method prepares the picker for a new node. Nothing is generated or tested until the first move is asked
+     * for.
+     * @param side The side to move.
+     * @param ply The distance from the root.
+     * @param pvMove The move of the last principal variation or PackedMove.NO_MOVE.
+     * @param hashMove The best move from the transposition table or PackedMove.NO_MOVE.
+     * @param previousMove The move that was played to reach the node or PackedMove.NO_MOVE at the root.
+     * @param capturesOnly True if only the captures and promotions should be handed out.
+     */
+    public void reset(Side side, int ply, int pvMove, int hashMove, int previousMove, boolean capturesOnly) {
+	this.side = side;
+	this.ply = ply;
+	this.previousMove = previousMove;
+	this.capturesOnly = capturesOnly;
+	this.pvMove = pvMove;
+	this.hashMove = hashMove;
+	stage = PV_MOVE_STAGE;
+	killerIndex = 0;
+	moves.clear();
+	index = 0;
+    }
+
+    /**
+     * This method returns the next move of the node.
+     * @return The next move or PackedMove.NO_MOVE when every move has been handed out.
+     */
+    public int nextMove() {
+	while (true) {
+	    switch (stage) {
+		case PV_MOVE_STAGE:
+		    stage = HASH_MOVE_STAGE;
+		    if (isLegal(pvMove)) {
+			return pvMove;
+		    }
+		    break;
+		case HASH_MOVE_STAGE:
+		    stage = GENERATE_CAPTURES_STAGE;
+		    if (hashMove != pvMove && isLegal(hashMove)) {
+			return hashMove;
+		    }
+		    break;
+		case GENERATE_CAPTURES_STAGE:
+		    generate(true);
+		    stage = CAPTURES_STAGE;
+		    break;
+		case CAPTURES_STAGE: {
+		    int move = pickBest();
+		    if (move != PackedMove.NO_MOVE) {
+			return move;
+		    }
+		    stage = capturesOnly ? DONE_STAGE : KILLERS_STAGE;
+		    break;
+		}
+		case KILLERS_STAGE: {
+		    if (killerIndex == MoveOrdering.KILLERS_PER_PLY) {
+			stage = GENERATE_QUIETS_STAGE;
+			break;
+		    }
+		    int killer = moveOrdering.getKiller(ply, killerIndex);
+		    killerIndex++;
+		    if (killer != pvMove && killer != hashMove && isLegal(killer)) {
+			return killer;
+		    }
+		    break;
+		}
+		case GENERATE_QUIETS_STAGE:
+		    generate(false);
+		    stage = QUIETS_STAGE;
+		    break;
+		case QUIETS_STAGE: {
+		    int move = pickBest();
+		    if (move != PackedMove.NO_MOVE) {
+			return move;
+		    }
+		    stage = DONE_STAGE;
+		    break;
+		}
+		default:
+		    return PackedMove.NO_MOVE;
+	    }
+	}
+    }
+
+    /**
+     * This method generates and scores the captures and promotions or the quiet moves of the node.
+     * @param captures True for the captures and promotions, false for the quiet moves.
+     */
+    private void generate(boolean captures) {
+	moves.clear();
+	index = 0;
+	if (captures) {
+	    board.generateLegalCaptures(side, moves);
+	} else {
+	    board.generateLegalQuiets(side, moves);
+	}
+	moveOrdering.scoreMoves(moves, scores, ply, previousMove);
+    }
+
+    /**
+     * This method moves the best of the moves that have not been handed out to the front of them and hands it out.
+     * The moves that were handed out in an earlier stage are skipped.
+     * @return The best move or PackedMove.NO_MOVE if every generated move has been handed out.
+     */
+    private int pickBest() {
+	while (index < moves.size()) {
+	    int best = index;
+	    for (int next = index + 1; next < moves.size(); next++) {
+		if (scores[next] > scores[best]) {
+		    best = next;
+		}
+	    }
+	    if (best != index) {
+		moves.swap(index, best);
+		int score = scores[index];
+		scores[index] = scores[best];
+		scores[best] = score;
+	    }
+	    int move = moves.get(index);
+	    index++;
+	    if (!isHandedOut(move)) {
+		return move;
+	    }
+	}
+	return PackedMove.NO_MOVE;
+    }
+
+    /**
+     * This method checks if a generated move was already handed out in the first or the third stage. A move of these
+     * stages that was not legal is never generated, so it does not matter that it is compared too.
+     * @param move The encoded move.
+     * @return True if the move has already been handed out.
+     */
+    private boolean isHandedOut(int move) {
+	if (move == pvMove || move == hashMove) {
+	    return true;
+	}
+	if (stage != QUIETS_STAGE) {
+	    return false;
+	}
+	for (int killer = 0; killer < MoveOrdering.KILLERS_PER_PLY; killer++) {
+	    if (move == moveOrdering.getKiller(ply, killer)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * This method checks if a move that was not generated is legal in the node, without generating any moves.
+     * @param move The encoded move or PackedMove.NO_MOVE.
+     * @return True if the move is legal.
+     */
+    private boolean isLegal(int move) {
+	return board.isLegalMove(side, move);
+    }
+}
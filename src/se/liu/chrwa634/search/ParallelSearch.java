@@ -0,0 +1,202 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class searches a position on several threads with Lazy SMP. Every thread searches the whole tree from the root
+ * with its own Search, and the threads only work together through the transposition table that they share. A thread
+ * that finds out something about a position saves it in the table, so the other threads could skip that position or
+ * search its best move first. Half of the helper threads start the iterative deepening one ply deeper than the main
+ * thread, so the threads do not all search the same positions in the same order.
+ *
+ * The main thread searches on the board that it was given, and it alone decides when the search stops: when its limits
+ * are reached all the helper threads are stopped. Every helper thread has its own board, which is a copy of the board
+ * of the main thread made with Board.copyFrom, and its own Search that is kept between the searches. The copies keep
+ * the positions that were played before, so every thread scores a repetition the same way and the scores that they
+ * save in the shared table agree. The result is the one of the deepest finished iteration of all threads, with the
+ * main thread first if several threads reached the same depth, and its amount of nodes is the sum of all threads.
+ */
+public class ParallelSearch
+{
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+
+    private final Board board;
+    private final int threads;
+    private final TranspositionTable transpositionTable;
+    private final Search mainSearch;
+    private final List<Board> helperBoards;
+    private final List<Search> helperSearches;
+    private SearchListener listener;
+    private long startTime;
+    private long[] threadNodes;
+
+    /**
+     * This is the constructor.
+     * @param board The board with the position that will be searched, it is used by the main thread.
+     * @param threads The amount of threads including the main thread, at least 1.
+     * @param transpositionTable The transposition table that all threads share.
+     */
+    public ParallelSearch(Board board, int threads, TranspositionTable transpositionTable) {
+	if (threads < 1) {
+	    throw new IllegalArgumentException("The amount of threads must be at least 1");
+	}
+	this.board = board;
+	this.threads = threads;
+	this.transpositionTable = transpositionTable;
+	mainSearch = new Search(board, transpositionTable);
+	helperBoards = new ArrayList<>();
+	helperSearches = new ArrayList<>();
+	for (int helper = 1; helper < threads; helper++) {
+	    Board helperBoard = new Board();
+	    Search helperSearch = new Search(helperBoard, transpositionTable);
+	    helperSearch.setDepthOffset(helper % 2);
+	    helperBoards.add(helperBoard);
+	    helperSearches.add(helperSearch);
+	}
+	listener = null;
+	threadNodes = new long[threads];
+    }
+
+    /**
+     * This method sets the listener that is told about every finished iteration of the main thread. The amount of
+     * nodes in the results is the sum of all threads.
+     * @param listener The listener, or null to not tell anyone.
+     */
+    public void setListener(SearchListener listener) {
+	this.listener = listener;
+	mainSearch.setListener(listener == null ? null : this::mainIterationFinished);
+    }
+
+    /**
+     * This method asks a running search to stop. It could be called from another thread.
+     */
+    public void stop() {
+	mainSearch.stop();
+	stopHelpers();
+    }
+
+    /**
+     * This method searches the position on the board on all threads until the limits of the main thread are reached.
+     * @param limits The limits of the search.
+     * @return The result of the deepest finished iteration of all threads.
+     */
+    public SearchResult search(SearchLimits limits) {
+	transpositionTable.newSearch();
+	startTime = System.nanoTime();
+	mainSearch.clearStop();
+	for (Search helperSearch : helperSearches) {
+	    helperSearch.clearStop();
+	}
+	if (threads == 1) {
+	    SearchResult result = mainSearch.iterate(limits);
+	    threadNodes[0] = mainSearch.getNodes();
+	    return result;
+	}
+
+	//The helpers only stop when the main thread stops them, so they are not limited by the nodes or the time.
+	SearchLimits helperLimits = SearchLimits.depth(limits.getMaxDepth());
+	ExecutorService pool = Executors.newFixedThreadPool(threads - 1);
+	try {
+	    List<Future<SearchResult>> helperResults = new ArrayList<>();
+	    for (int helper = 0; helper < helperSearches.size(); helper++) {
+		helperBoards.get(helper).copyFrom(board);
+		Search helperSearch = helperSearches.get(helper);
+		helperResults.add(pool.submit(() -> helperSearch.iterate(helperLimits)));
+	    }
+
+	    SearchResult best = mainSearch.iterate(limits);
+	    stopHelpers();
+	    for (Future<SearchResult> helperResult : helperResults) {
+		SearchResult result = helperResult.get();
+		if (best == null || (result != null && result.getDepth() > best.getDepth())) {
+		    best = result;
+		}
+	    }
+	    collectThreadNodes();
+	    return withAllNodes(best);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException("The search was interrupted", e);
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException("A helper thread of the search failed", e.getCause());
+	} finally {
+	    stopHelpers();
+	    pool.shutdown();
+	}
+    }
+
+    public int getThreads() {
+	return threads;
+    }
+
+    /**
+     * This method returns the share of the cutoffs of all threads in the last search that were caused by the first
+     * move of the node, see Search.getFirstMoveCutoffRate.
+     * @return The share between 0 and 1.
+     */
+    public double getFirstMoveCutoffRate() {
+	long cutoffs = mainSearch.getCutoffs();
+	long firstMoveCutoffs = mainSearch.getFirstMoveCutoffs();
+	for (Search helperSearch : helperSearches) {
+	    cutoffs += helperSearch.getCutoffs();
+	    firstMoveCutoffs += helperSearch.getFirstMoveCutoffs();
+	}
+	return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * This method returns the amount of nodes that every thread searched in the last search, with the main thread
+     * first.
+     * @return The amount of nodes of every thread.
+     */
+    public long[] getThreadNodes() {
+	return threadNodes.clone();
+    }
+
+    /**
+     * This method tells the listener about an iteration of the main thread, with the nodes of all threads.
+     * @param result The result of the iteration of the main thread.
+     */
+    private void mainIterationFinished(SearchResult result) {
+	listener.iterationFinished(withAllNodes(result));
+    }
+
+    /**
+     * This method creates a copy of a result with the amount of nodes of all threads and the time since the search
+     * started.
+     * @param result A result of one of the threads.
+     * @return The result with the nodes of all threads, or null if the result is null.
+     */
+    private SearchResult withAllNodes(SearchResult result) {
+	if (result == null) {
+	    return null;
+	}
+	long nodes = mainSearch.getNodes();
+	for (Search helperSearch : helperSearches) {
+	    nodes += helperSearch.getNodes();
+	}
+	long timeMillis = (System.nanoTime() - startTime) / NANOS_PER_MILLISECOND;
+	return new SearchResult(result.getPrincipalVariation(), result.getScore(), result.getDepth(), nodes, timeMillis,
+				result.getHashfull());
+    }
+
+    private void stopHelpers() {
+	for (Search helperSearch : helperSearches) {
+	    helperSearch.stop();
+	}
+    }
+
+    private void collectThreadNodes() {
+	threadNodes[0] = mainSearch.getNodes();
+	for (int helper = 0; helper < helperSearches.size(); helper++) {
+	    threadNodes[helper + 1] = helperSearches.get(helper).getNodes();
+	}
+    }
+}
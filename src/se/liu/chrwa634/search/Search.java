@@ -0,0 +1,515 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.PackedMove;
+import se.liu.chrwa634.pieces.Side;
+
+import java.util.Arrays;
+
+/**
+ * This class searches a position for the best move with negamax alpha-beta and iterative deepening. The position is
+ * searched to depth 1, then to depth 2 and so on until one of the limits is reached, and the principal variation of
+ * every iteration is searched first in the next one so that most of the moves are cut off. At the end of the main
+ * search a quiescence search looks through the captures and promotions so that a position is never scored in the
+ * middle of an exchange. A position is scored with Evaluator. The moves are handed out by a MovePicker in the order of
+ * MoveOrdering, and how well they are ordered is measured by the share of the cutoffs that are caused by the first
+ * move of a node.
+ *
+ * What the search finds out about a position is saved in a TranspositionTable. A position that has already been
+ * searched deep enough is not searched again, and the best move that was saved for it is searched first. The table
+ * could be shared between searches and is kept between the moves of a game. A mate score is saved as the distance
+ * from the position instead of from the root, since the position could be reached at another ply.
+ *
+ * The search makes and takes back the moves on the board that it was given, so the board should not be used by
+ * anything else while it is searching. After the search the board is exactly as it was before. The moves are
+ * generated by one MovePicker for every ply, so the search does not create any objects while it is running.
+ *
+ * An iteration that is stopped by the node or time limit is thrown away, except for the first one since the search
+ * always has to return a move. The first iteration is therefore never stopped.
+ */
+public class Search
+{
+    public static final int MATE_SCORE = 30000;
+    public static final int MAX_PLY = 128;
+    private static final int INFINITY = 32000;
+    private static final int DRAW_SCORE = 0;
+    //Scores further from zero than this are mates, since a mate is never found deeper than MAX_PLY.
+    private static final int MATE_BOUND = MATE_SCORE - MAX_PLY;
+    //The limits are checked every time this many nodes have been searched, the value has to be a power of two.
+    private static final int CHECK_INTERVAL = 2048;
+    //The same rules as in BoardScanner: a position that has occurred before is scored as a draw in the search, since
+    //the side that could repeat it could also repeat it a third time.
+    private static final int REPEATED_POSITION_COUNT = 2;
+    //The fifty-move counter of the board counts plies, so fifty moves of both sides are 100 plies.
+    private static final int FIFTY_MOVE_LIMIT = 100;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+
+    private final Board board;
+    private final TranspositionTable transpositionTable;
+    private final MovePicker[] movePickers;
+    private final int[][] pvTable;
+    private final int[] pvLength;
+    private final int[] playedMoves;
+    private final MoveOrdering moveOrdering;
+    private int[] previousPv;
+    private boolean followPv;
+    private SearchListener listener;
+    private SearchLimits limits;
+    private int depthOffset;
+    private long nodes;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long startTime;
+    private boolean canStop;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+
+    /**
+     * This is the constructor for a search with its own transposition table of TranspositionTable.DEFAULT_MEGABYTES.
+     * @param board The board with the position that will be searched.
+     */
+    public Search(Board board) {
+	this(board, new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * This is the constructor.
+     * @param board The board with the position that will be searched.
+     * @param transpositionTable The transposition table of the search.
+     */
+    public Search(Board board, TranspositionTable transpositionTable) {
+	this.board = board;
+	this.transpositionTable = transpositionTable;
+	moveOrdering = new MoveOrdering();
+	movePickers = new MovePicker[MAX_PLY];
+	for (int ply = 0; ply < MAX_PLY; ply++) {
+	    movePickers[ply] = new MovePicker(board, moveOrdering);
+	}
+	pvTable = new int[MAX_PLY][MAX_PLY];
+	pvLength = new int[MAX_PLY];
+	playedMoves = new int[MAX_PLY];
+	previousPv = new int[0];
+	listener = null;
+	depthOffset = 0;
+    }
+
+    /**
+     * This method sets the listener that is told about every finished iteration.
+     * @param listener The listener, or null to not tell anyone.
+     */
+    public void setListener(SearchListener listener) {
+	this.listener = listener;
+    }
+
+    /**
+     * This method sets how many plies deeper than usual the iterative deepening starts. The helper threads of
+     * ParallelSearch start at different depths so that they do not all search the same iteration at once.
+     * @param depthOffset The amount of plies, zero for a normal search.
+     */
+    void setDepthOffset(int depthOffset) {
+	this.depthOffset = depthOffset;
+    }
+
+    /**
+     * This method asks a running search to stop. It could be called from another thread, and the search stops at its
+     * next check of the limits and returns the result of the last finished iteration.
+     */
+    public void stop() {
+	stopRequested = true;
+    }
+
+    /**
+     * This method checks if a score is a mate for one of the sides.
+     * @param score A score from the search.
+     * @return True if the score is a mate score.
+     */
+    public static boolean isMateScore(int score) {
+	return Math.abs(score) > MATE_BOUND;
+    }
+
+    /**
+     * This method searches the position on the board with iterative deepening until one of the limits is reached. The
+     * search also stops early if a mate has been found within the searched depth or if more than half of the time has
+     * passed, since the next iteration would most likely not finish in time.
+     * @param limits The limits of the search.
+     * @return The result of the deepest finished iteration. The best move is PackedMove.NO_MOVE if the side to move
+     * has no legal move.
+     */
+    public SearchResult search(SearchLimits limits) {
+	transpositionTable.newSearch();
+	clearStop();
+	return iterate(limits);
+    }
+
+    /**
+     * This method removes an earlier request to stop so that the next search could run.
+     */
+    void clearStop() {
+	stopRequested = false;
+    }
+
+    /**
+     * This method runs the iterative deepening of search without telling the transposition table that a new search
+     * starts and without removing an earlier request to stop. It is used by the threads of ParallelSearch, which share
+     * the table and start the search together, since a helper thread could be stopped before it has started.
+     * @param limits The limits of the search.
+     * @return The result of the deepest finished iteration.
+     */
+    SearchResult iterate(SearchLimits limits) {
+	this.limits = limits;
+	nodes = 0;
+	cutoffs = 0;
+	firstMoveCutoffs = 0;
+	moveOrdering.newSearch();
+	startTime = System.nanoTime();
+	canStop = false;
+	stopped = false;
+	previousPv = new int[0];
+
+	SearchResult result = null;
+	for (int depth = Math.min(1 + depthOffset, limits.getMaxDepth()); depth <= limits.getMaxDepth(); depth++) {
+	    followPv = true;
+	    int score = negamax(depth, 0, -INFINITY, INFINITY);
+	    if (stopped) {
+		break;
+	    }
+	    previousPv = extendPrincipalVariation(depth);
+	    result = new SearchResult(previousPv, score, depth, nodes, getElapsedMillis(), transpositionTable.getHashfull());
+	    canStop = true;
+	    if (listener != null) {
+		listener.iterationFinished(result);
+	    }
+	    //Without a principal variation the side to move has no legal move, so a deeper search would not change anything.
+	    if (previousPv.length == 0 || (isMateScore(score) && MATE_SCORE - Math.abs(score) <= depth)) {
+		break;
+	    }
+	    if (limits.hasTimeLimit() && getElapsedMillis() * 2 > limits.getMaxTimeMillis()) {
+		break;
+	    }
+	}
+	return result;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+	return transpositionTable;
+    }
+
+    /**
+     * This method returns the amount of nodes that the last search has searched so far. It could be called from
+     * another thread while the search is running, but then the amount could be a little old.
+     * @return The amount of nodes.
+     */
+    public long getNodes() {
+	return nodes;
+    }
+
+    /**
+     * This method returns the amount of beta cutoffs of the main search in the last search.
+     * @return The amount of cutoffs.
+     */
+    public long getCutoffs() {
+	return cutoffs;
+    }
+
+    /**
+     * This method returns the amount of beta cutoffs of the main search in the last search that were caused by the
+     * first move of the node. The share of these cutoffs tells how well the moves are ordered.
+     * @return The amount of cutoffs by the first move.
+     */
+    public long getFirstMoveCutoffs() {
+	return firstMoveCutoffs;
+    }
+
+    /**
+     * This method returns the share of the cutoffs in the last search that were caused by the first move.
+     * @return The share between 0 and 1.
+     */
+    public double getFirstMoveCutoffRate() {
+	return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * This method searches a position with negamax alpha-beta. The score is from the view of the side to move, and the
+     * best line that was found is saved in the principal variation table.
+     * @param depth The remaining depth in plies.
+     * @param ply The distance from the root.
+     * @param alpha The lowest score that the side to move is already sure of.
+     * @param beta The highest score that the opponent allows.
+     * @return The score of the position.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+	pvLength[ply] = ply;
+	if (ply > 0 && isDraw()) {
+	    return DRAW_SCORE;
+	}
+	Side side = getSideToMove();
+	boolean isInCheck = board.isKingInCheck(side);
+	if (isInCheck) {
+	    //A check is searched one ply deeper so that a mate is not hidden by the end of the search.
+	    depth++;
+	}
+	if (depth <= 0 || ply >= MAX_PLY - 1) {
+	    return quiescence(ply, alpha, beta);
+	}
+	nodes++;
+	checkLimits();
+	if (stopped) {
+	    return 0;
+	}
+
+	long key = board.getZobristKey();
+	long entry = transpositionTable.probe(key);
+	int hashMove = TranspositionTable.getMove(entry);
+	if (entry != TranspositionTable.NO_ENTRY && ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+	    int hashScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+	    int bound = TranspositionTable.getBound(entry);
+	    if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER_BOUND && hashScore >= beta) ||
+		(bound == TranspositionTable.UPPER_BOUND && hashScore <= alpha)) {
+		return hashScore;
+	    }
+	}
+
+	int pvMove = getPvMove(ply);
+	MovePicker movePicker = movePickers[ply];
+	movePicker.reset(side, ply, pvMove, hashMove, getPreviousMove(ply), false);
+
+	int originalAlpha = alpha;
+	int bestScore = -INFINITY;
+	int bestMove = PackedMove.NO_MOVE;
+	int moveCount = 0;
+	for (int move = movePicker.nextMove(); move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+	    moveCount++;
+	    //Only the principal variation move, which is always handed out first, continues the principal variation.
+	    followPv = move == pvMove;
+	    playedMoves[ply] = move;
+	    board.makeMove(move);
+	    int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+	    board.unmakeMove();
+	    if (stopped) {
+		return 0;
+	    }
+	    if (score > bestScore) {
+		bestScore = score;
+		bestMove = move;
+		if (score > alpha) {
+		    alpha = score;
+		    updatePrincipalVariation(move, ply);
+		    if (score >= beta) {
+			cutoffs++;
+			if (moveCount == 1) {
+			    firstMoveCutoffs++;
+			}
+			if (MoveOrdering.isQuiet(move)) {
+			    moveOrdering.updateCutoff(move, ply, depth, getPreviousMove(ply));
+			}
+			break;
+		    }
+		}
+	    }
+	}
+	if (moveCount == 0) {
+	    return isInCheck ? -MATE_SCORE + ply : DRAW_SCORE;
+	}
+
+	int bound = TranspositionTable.EXACT;
+	if (bestScore >= beta) {
+	    bound = TranspositionTable.LOWER_BOUND;
+	} else if (bestScore <= originalAlpha) {
+	    bound = TranspositionTable.UPPER_BOUND;
+	}
+	transpositionTable.store(key, depth, bound, scoreToTable(bestScore, ply), bestMove);
+	return bestScore;
+    }
+
+    /**
+     * This method searches the captures and promotions of a position until the position is quiet. The side to move
+     * could also choose to not capture anything, so the score is at least the evaluation of the position, unless the
+     * king is in check, in which case every move that gets out of the check is searched.
+     * @param ply The distance from the root.
+     * @param alpha The lowest score that the side to move is already sure of.
+     * @param beta The highest score that the opponent allows.
+     * @return The score of the position.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+	pvLength[ply] = ply;
+	nodes++;
+	checkLimits();
+	if (stopped) {
+	    return 0;
+	}
+	if (ply >= MAX_PLY - 1) {
+	    return Evaluator.evaluate(board);
+	}
+
+	Side side = getSideToMove();
+	boolean isInCheck = board.isKingInCheck(side);
+	int bestScore = -INFINITY;
+	if (!isInCheck) {
+	    bestScore = Evaluator.evaluate(board);
+	    if (bestScore >= beta) {
+		return bestScore;
+	    }
+	    if (bestScore > alpha) {
+		alpha = bestScore;
+	    }
+	}
+
+	//The quiet moves are only searched to get out of a check.
+	MovePicker movePicker = movePickers[ply];
+	movePicker.reset(side, ply, PackedMove.NO_MOVE, PackedMove.NO_MOVE, getPreviousMove(ply), !isInCheck);
+	int moveCount = 0;
+	for (int move = movePicker.nextMove(); move != PackedMove.NO_MOVE; move = movePicker.nextMove()) {
+	    moveCount++;
+	    playedMoves[ply] = move;
+	    board.makeMove(move);
+	    int score = -quiescence(ply + 1, -beta, -alpha);
+	    board.unmakeMove();
+	    if (stopped) {
+		return 0;
+	    }
+	    if (score > bestScore) {
+		bestScore = score;
+		if (score > alpha) {
+		    alpha = score;
+		    updatePrincipalVariation(move, ply);
+		    if (score >= beta) {
+			break;
+		    }
+		}
+	    }
+	}
+	//Without a capture the position is only scored if the side to move has a quiet move, otherwise it is a stalemate.
+	if (moveCount == 0 && (isInCheck || !board.hasAnyLegalMove(side))) {
+	    return isInCheck ? -MATE_SCORE + ply : DRAW_SCORE;
+	}
+	return bestScore;
+    }
+
+    /**
+     * This method returns the move of the last principal variation at a ply, which is only given while the search
+     * follows it.
+     * @param ply The distance from the root.
+     * @return The move or PackedMove.NO_MOVE.
+     */
+    private int getPvMove(int ply) {
+	if (!followPv || ply >= previousPv.length) {
+	    return PackedMove.NO_MOVE;
+	}
+	return previousPv[ply];
+    }
+
+    /**
+     * This method returns the move that was played to reach a ply.
+     * @param ply The distance from the root.
+     * @return The move or PackedMove.NO_MOVE at the root.
+     */
+    private int getPreviousMove(int ply) {
+	return ply == 0 ? PackedMove.NO_MOVE : playedMoves[ply - 1];
+    }
+
+    /**
+     * This method returns the principal variation of the root. A node that is cut off by the transposition table does
+     * not have a principal variation below it, which happens more often when several threads share the table, so the
+     * principal variation is continued with the best moves that are saved in the table as long as they are legal, the
+     * line is not longer than the depth and the line does not repeat a position.
+     * @param depth The depth of the iteration.
+     * @return The principal variation.
+     */
+    private int[] extendPrincipalVariation(int depth) {
+	int length = pvLength[0];
+	int[] principalVariation = new int[Math.max(length, depth)];
+	System.arraycopy(pvTable[0], 0, principalVariation, 0, length);
+	for (int ply = 0; ply < length; ply++) {
+	    board.makeMove(principalVariation[ply]);
+	}
+	while (length < depth && length > 0 && board.getPositionCount() < REPEATED_POSITION_COUNT) {
+	    int move = TranspositionTable.getMove(transpositionTable.probe(board.getZobristKey()));
+	    if (!board.isLegalMove(getSideToMove(), move)) {
+		break;
+	    }
+	    board.makeMove(move);
+	    principalVariation[length] = move;
+	    length++;
+	}
+	for (int ply = 0; ply < length; ply++) {
+	    board.unmakeMove();
+	}
+	return Arrays.copyOf(principalVariation, length);
+    }
+
+    /**
+     * This method changes a mate score from the distance from the root to the distance from the position, so that it
+     * could be saved in the transposition table.
+     * @param score The score from the search.
+     * @param ply The distance from the root.
+     * @return The score that is saved.
+     */
+    private static int scoreToTable(int score, int ply) {
+	if (score > MATE_BOUND) {
+	    return score + ply;
+	}
+	if (score < -MATE_BOUND) {
+	    return score - ply;
+	}
+	return score;
+    }
+
+    /**
+     * This method changes a mate score from the transposition table back to the distance from the root.
+     * @param score The score from the transposition table.
+     * @param ply The distance from the root.
+     * @return The score for the search.
+     */
+    private static int scoreFromTable(int score, int ply) {
+	if (score > MATE_BOUND) {
+	    return score - ply;
+	}
+	if (score < -MATE_BOUND) {
+	    return score + ply;
+	}
+	return score;
+    }
+
+    /**
+     * This method saves a move as the best move of a ply, followed by the best line of the next ply.
+     * @param move The best move.
+     * @param ply The distance from the root.
+     */
+    private void updatePrincipalVariation(int move, int ply) {
+	pvTable[ply][ply] = move;
+	int length = pvLength[ply + 1];
+	System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+	pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    /**
+     * This method checks if the position is a draw by repetition, by the fifty-move rule or by insufficient material.
+     * @return True if the position is a draw.
+     */
+    private boolean isDraw() {
+	return board.getPositionCount() >= REPEATED_POSITION_COUNT || board.getFiftyMoveCounter() >= FIFTY_MOVE_LIMIT ||
+	       board.getMaterial().isInsufficientMaterial();
+    }
+
+    /**
+     * This method stops the search if a limit has been reached or if stop has been called. The clock is only read
+     * every CHECK_INTERVAL nodes.
+     */
+    private void checkLimits() {
+	if (!canStop || (nodes & (CHECK_INTERVAL - 1)) != 0) {
+	    return;
+	}
+	if (stopRequested || (limits.hasNodeLimit() && nodes >= limits.getMaxNodes()) ||
+	    (limits.hasTimeLimit() && getElapsedMillis() >= limits.getMaxTimeMillis())) {
+	    stopped = true;
+	}
+    }
+
+    private Side getSideToMove() {
+	return board.getIsWhiteTurn() ? Side.WHITE : Side.BLACK;
+    }
+
+    private long getElapsedMillis() {
+	return (System.nanoTime() - startTime) / NANOS_PER_MILLISECOND;
+    }
+}
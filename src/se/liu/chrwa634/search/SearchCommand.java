@@ -0,0 +1,203 @@
+package se.liu.chrwa634.search;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import se.liu.chrwa634.main.Board;
+import se.liu.chrwa634.main.FenParseException;
+import se.liu.chrwa634.main.PackedMove;
+
+/**
+ * This class is the command line entry point of the search. It loads a FEN and searches it until the depth, node or
+ * time limit is reached. The result of every iteration is printed, followed by the best move. If no limit is given the
+ * position is searched to a depth of DEFAULT_DEPTH. The size of the transposition table is set with --hash.
+ *
+ * After the search the share of the cutoffs that were caused by the first move of a node is printed, which tells how
+ * well the moves are ordered.
+ *
+ * With --threads the position is searched on several threads with ParallelSearch, and the nodes per second of every
+ * thread are printed after the search. With --scaling the position is searched to the depth once for every power of
+ * two up to the amount of threads, every time with a new transposition table, to see how the time to reach the depth
+ * and the nodes per second scale with the threads.
+ *
+ * Example: search --fen "r1bqkbnr/pppp1ppp/2n5/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 2 3" --depth 4
+ * Example: search --time 5000
+ * Example: search --depth 9 --threads 64 --scaling
+ */
+public final class SearchCommand
+{
+    private static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int DEFAULT_DEPTH = 6;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000L;
+
+    private SearchCommand() {}
+
+    public static void main(String[] args) {
+	Options options = createOptions();
+	CommandLine commandLine;
+	try {
+	    commandLine = new DefaultParser().parse(options, args);
+	} catch (ParseException e) {
+	    System.err.println(e.getMessage());
+	    printHelp(options);
+	    System.exit(1);
+	    return;
+	}
+	if (commandLine.hasOption("help")) {
+	    printHelp(options);
+	    return;
+	}
+
+	SearchLimits limits;
+	int hashMegabytes;
+	int threads;
+	try {
+	    limits = createLimits(commandLine);
+	    hashMegabytes = Integer.parseInt(commandLine.getOptionValue("hash", String.valueOf(TranspositionTable.DEFAULT_MEGABYTES)));
+	    threads = Integer.parseInt(commandLine.getOptionValue("threads", "1"));
+	    if (threads < 1) {
+		throw new IllegalArgumentException("The amount of threads must be at least 1");
+	    }
+	} catch (NumberFormatException e) {
+	    System.err.println("The depth, the nodes, the time, the hash size and the threads must be numbers");
+	    System.exit(1);
+	    return;
+	} catch (IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    System.exit(1);
+	    return;
+	}
+
+	Board board = new Board();
+	try {
+	    board.loadFen(commandLine.getOptionValue("fen", START_POSITION));
+	} catch (FenParseException e) {
+	    System.err.println(e.getMessage());
+	    System.exit(1);
+	    return;
+	}
+
+	if (commandLine.hasOption("scaling")) {
+	    printScaling(board, limits, threads, hashMegabytes);
+	    return;
+	}
+
+	ParallelSearch search = new ParallelSearch(board, threads, new TranspositionTable(hashMegabytes));
+	search.setListener(System.out::println);
+	long startTime = System.nanoTime();
+	SearchResult result = search.search(limits);
+	long elapsedTime = Math.max(1, System.nanoTime() - startTime);
+	if (threads > 1) {
+	    printThreadNodes(search.getThreadNodes(), elapsedTime);
+	}
+	System.out.println(String.format("First-move cutoffs: %.1f%%", 100 * search.getFirstMoveCutoffRate()));
+	int bestMove = result.getBestMove();
+	System.out.println("bestmove " + (bestMove == PackedMove.NO_MOVE ? "none" : PackedMove.toNotation(bestMove)));
+    }
+
+    /**
+     * This method searches the position once for every power of two up to the amount of threads and prints the time
+     * to reach the depth, the nodes per second, the nodes per second of every thread, the speedup of the time compared
+     * to one thread and the efficiency, which is the speedup divided by the threads. The depth should be given, since
+     * with only a time limit every run takes the same time. The position is searched once on one thread before the
+     * report so that the JIT compiler has compiled the search, otherwise the first run would be slower than it should.
+     * @param board The board with the position.
+     * @param limits The limits of every search.
+     * @param maxThreads The largest amount of threads.
+     * @param hashMegabytes The size of the transposition table of every search.
+     */
+    private static void printScaling(Board board, SearchLimits limits, int maxThreads, int hashMegabytes) {
+	System.out.println(String.format("%8s %6s %10s %14s %14s %12s %8s %10s", "Threads", "Depth", "Time (ms)", "Nodes", "NPS",
+					 "NPS/thread", "Speedup", "Efficiency"));
+	new Search(board, new TranspositionTable(hashMegabytes)).search(limits);
+	long singleThreadTime = 0;
+	for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+	    ParallelSearch search = new ParallelSearch(board, threads, new TranspositionTable(hashMegabytes));
+	    long startTime = System.nanoTime();
+	    SearchResult result = search.search(limits);
+	    long elapsedTime = Math.max(1, System.nanoTime() - startTime);
+	    if (threads == 1) {
+		singleThreadTime = elapsedTime;
+	    }
+	    long nodesPerSecond = result.getNodes() * NANOS_PER_SECOND / elapsedTime;
+	    double speedup = (double) singleThreadTime / elapsedTime;
+	    System.out.println(String.format("%8d %6d %10d %14d %14d %12d %8.2f %9.1f%%", threads, result.getDepth(),
+					     elapsedTime / NANOS_PER_MILLISECOND, result.getNodes(), nodesPerSecond,
+					     nodesPerSecond / threads, speedup, 100 * speedup / threads));
+	}
+    }
+
+    /**
+     * This method returns the next amount of threads of the scaling report, which is the double of the current amount
+     * but never more than the largest amount, so the largest amount is always measured.
+     * @param threads The current amount of threads.
+     * @param maxThreads The largest amount of threads.
+     * @return The next amount of threads, which is more than the largest amount after the largest amount.
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+	if (threads == maxThreads) {
+	    return maxThreads + 1;
+	}
+	return Math.min(threads * 2, maxThreads);
+    }
+
+    /**
+     * This method prints the amount of nodes and the nodes per second of every thread of a search.
+     * @param threadNodes The amount of nodes of every thread, with the main thread first.
+     * @param elapsedTime The time of the search in nanoseconds.
+     */
+    private static void printThreadNodes(long[] threadNodes, long elapsedTime) {
+	for (int thread = 0; thread < threadNodes.length; thread++) {
+	    String name = thread == 0 ? "main" : "helper " + thread;
+	    System.out.println(String.format("%-10s %14d nodes %12d nps", name, threadNodes[thread],
+					     threadNodes[thread] * NANOS_PER_SECOND / elapsedTime));
+	}
+    }
+
+    /**
+     * This method creates the limits of the search from the options. If neither the depth, the nodes nor the time is
+     * given the depth is DEFAULT_DEPTH, otherwise the depth is only limited if it is given.
+     * @param commandLine The parsed command line.
+     * @return The limits of the search.
+     */
+    private static SearchLimits createLimits(CommandLine commandLine) {
+	boolean hasLimit = commandLine.hasOption("depth") || commandLine.hasOption("nodes") || commandLine.hasOption("time");
+	String defaultDepth = String.valueOf(hasLimit ? Search.MAX_PLY - 1 : DEFAULT_DEPTH);
+	int depth = Integer.parseInt(commandLine.getOptionValue("depth", defaultDepth));
+	long nodes = Long.parseLong(commandLine.getOptionValue("nodes", String.valueOf(SearchLimits.NO_LIMIT)));
+	long time = Long.parseLong(commandLine.getOptionValue("time", String.valueOf(SearchLimits.NO_LIMIT)));
+	return new SearchLimits(depth, nodes, time);
+    }
+
+    private static void printHelp(Options options) {
+	new HelpFormatter().printHelp("search [--fen FEN] [--depth N] [--nodes N] [--time MS] [--hash MB] [--threads N [--scaling]]", options);
+    }
+
+    /**
+     * This method creates the command line options of the search.
+     * @return The options.
+     */
+    private static Options createOptions() {
+	Options options = new Options();
+	options.addOption(Option.builder("f").longOpt("fen").hasArg().argName("FEN")
+				.desc("the position to search, the start position if not given").build());
+	options.addOption(Option.builder("d").longOpt("depth").hasArg().argName("N")
+				.desc("the deepest iteration in plies").build());
+	options.addOption(Option.builder("n").longOpt("nodes").hasArg().argName("N")
+				.desc("stop after this many nodes").build());
+	options.addOption(Option.builder("t").longOpt("time").hasArg().argName("MS")
+				.desc("stop after this many milliseconds").build());
+	options.addOption(Option.builder().longOpt("hash").hasArg().argName("MB")
+				.desc("the size of the transposition table, " + TranspositionTable.DEFAULT_MEGABYTES + " MB if not given").build());
+	options.addOption(Option.builder().longOpt("threads").hasArg().argName("N")
+				.desc("the amount of threads of the search, 1 if not given").build());
+	options.addOption(Option.builder().longOpt("scaling")
+				.desc("search once for every power of two up to the threads and print the speedup").build());
+	options.addOption(Option.builder("h").longOpt("help").desc("print this help").build());
+	return options;
+    }
+}
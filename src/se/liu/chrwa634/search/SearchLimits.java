@@ -0,0 +1,71 @@
+package se.liu.chrwa634.search;
+
+/**
+ * This class holds the limits of a search. The search stops when it has searched to the maximum depth, when it has
+ * searched the maximum amount of nodes or when the maximum time has passed, whichever happens first. A node or time
+ * limit of zero means that there is no such limit.
+ */
+public class SearchLimits
+{
+    public static final long NO_LIMIT = 0L;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeMillis;
+
+    /**
+     * This is the constructor.
+     * @param maxDepth The deepest iteration of the search in plies, at least 1.
+     * @param maxNodes The amount of nodes after which the search stops, or NO_LIMIT.
+     * @param maxTimeMillis The time in milliseconds after which the search stops, or NO_LIMIT.
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+	if (maxDepth < 1) {
+	    throw new IllegalArgumentException("The depth of a search must be at least 1");
+	}
+	if (maxNodes < 0 || maxTimeMillis < 0) {
+	    throw new IllegalArgumentException("The node and time limits of a search can not be negative");
+	}
+	this.maxDepth = Math.min(maxDepth, Search.MAX_PLY - 1);
+	this.maxNodes = maxNodes;
+	this.maxTimeMillis = maxTimeMillis;
+    }
+
+    /**
+     * This method creates limits that only limit the depth.
+     * @param maxDepth The deepest iteration of the search in plies.
+     * @return The limits.
+     */
+    public static SearchLimits depth(int maxDepth) {
+	return new SearchLimits(maxDepth, NO_LIMIT, NO_LIMIT);
+    }
+
+    /**
+     * This method creates limits that only limit the time.
+     * @param maxTimeMillis The time in milliseconds after which the search stops.
+     * @return The limits.
+     */
+    public static SearchLimits time(long maxTimeMillis) {
+	return new SearchLimits(Search.MAX_PLY - 1, NO_LIMIT, maxTimeMillis);
+    }
+
+    public int getMaxDepth() {
+	return maxDepth;
+    }
+
+    public long getMaxNodes() {
+	return maxNodes;
+    }
+
+    public long getMaxTimeMillis() {
+	return maxTimeMillis;
+    }
+
+    public boolean hasNodeLimit() {
+	return maxNodes != NO_LIMIT;
+    }
+
+    public boolean hasTimeLimit() {
+	return maxTimeMillis != NO_LIMIT;
+    }
+}
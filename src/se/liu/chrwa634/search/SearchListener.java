@@ -0,0 +1,14 @@
+package se.liu.chrwa634.search;
+
+/**
+ * This interface is used to follow a search while it is running. The search calls it after every finished iteration
+ * of the iterative deepening, so an analysis could show the best move and the principal variation of every depth.
+ */
+public interface SearchListener
+{
+    /**
+     * This method is called when an iteration of the search is finished.
+     * @param result The result of the iteration.
+     */
+    void iterationFinished(SearchResult result);
+}
@@ -0,0 +1,108 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.PackedMove;
+
+/**
+ * This class holds the result of a search, or of one iteration of it. The score is in centipawns from the view of the
+ * side to move, and a mate is given as a score close to Search.MATE_SCORE. The principal variation is the sequence of
+ * moves that both sides are expected to play, starting with the best move. The moves are encoded with PackedMove. The
+ * hashfull is how much of the transposition table the search has filled, in permille.
+ */
+public class SearchResult
+{
+    private final int[] principalVariation;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int hashfull;
+
+    public SearchResult(int[] principalVariation, int score, int depth, long nodes, long timeMillis, int hashfull) {
+	this.principalVariation = principalVariation.clone();
+	this.score = score;
+	this.depth = depth;
+	this.nodes = nodes;
+	this.timeMillis = timeMillis;
+	this.hashfull = hashfull;
+    }
+
+    /**
+     * This method returns the best move that was found.
+     * @return The encoded move, or PackedMove.NO_MOVE if the side to move has no legal move.
+     */
+    public int getBestMove() {
+	return principalVariation.length == 0 ? PackedMove.NO_MOVE : principalVariation[0];
+    }
+
+    public int[] getPrincipalVariation() {
+	return principalVariation.clone();
+    }
+
+    public int getScore() {
+	return score;
+    }
+
+    public int getDepth() {
+	return depth;
+    }
+
+    public long getNodes() {
+	return nodes;
+    }
+
+    public long getTimeMillis() {
+	return timeMillis;
+    }
+
+    public int getHashfull() {
+	return hashfull;
+    }
+
+    /**
+     * This method returns how many nodes were searched every second.
+     * @return The nodes per second.
+     */
+    public long getNodesPerSecond() {
+	return timeMillis == 0 ? nodes * 1000 : nodes * 1000 / timeMillis;
+    }
+
+    /**
+     * This method checks if the score is a mate for one of the sides.
+     * @return True if the score is a mate score.
+     */
+    public boolean isMate() {
+	return Search.isMateScore(score);
+    }
+
+    /**
+     * This method returns the amount of moves until the mate, positive if the side to move mates and negative if it is
+     * mated.
+     * @return The amount of moves, where a move is a move of both sides.
+     */
+    public int getMateInMoves() {
+	int plies = Search.MATE_SCORE - Math.abs(score);
+	int moves = (plies + 1) / 2;
+	return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * This method writes the principal variation in coordinate notation, for example "e2e4 e7e5 g1f3".
+     * @return The moves separated by spaces.
+     */
+    public String getPrincipalVariationNotation() {
+	StringBuilder notation = new StringBuilder();
+	for (int move : principalVariation) {
+	    if (notation.length() > 0) {
+		notation.append(' ');
+	    }
+	    notation.append(PackedMove.toNotation(move));
+	}
+	return notation.toString();
+    }
+
+    @Override public String toString() {
+	String scoreText = isMate() ? "mate " + getMateInMoves() : "cp " + score;
+	return "depth " + depth + " score " + scoreText + " nodes " + nodes + " nps " + getNodesPerSecond() + " hashfull " +
+	       hashfull + " time " + timeMillis + " pv " + getPrincipalVariationNotation();
+    }
+}
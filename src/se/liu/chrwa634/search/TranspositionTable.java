@@ -0,0 +1,219 @@
+package se.liu.chrwa634.search;
+
+import se.liu.chrwa634.main.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * This class is the transposition table of the search. It saves what the search has found out about a position by the
+ * Zobrist key of the position, so a position that is reached again, by another move order or in the next iteration of
+ * the iterative deepening, does not have to be searched again. Every entry holds the depth the position was searched
+ * to, the type of bound of the score, the score, the best move and the age of the entry.
+ *
+ * The table is a fixed power of two amount of buckets in a single long array, like PerftCache. Every bucket has four
+ * entries, which is 64 bytes. An entry is two longs, the data and the key XOR the data, so the table could be shared
+ * between several search threads without locks: if two threads write the same entry at once a reader could see the
+ * data of one and the key of the other, but then the key does not match and the entry is treated as missing.
+ *
+ * The data long is packed as follows:
+ *
+ * bits 0-25: the best move encoded with PackedMove, or PackedMove.NO_MOVE.
+ * bits 26-41: the score as a 16 bit signed number.
+ * bits 42-49: the depth.
+ * bits 50-51: the bound, where zero means that the entry is empty.
+ * bits 52-57: the age, which is the search that saved the entry.
+ *
+ * The entry that is replaced in a full bucket is the one with the lowest depth, where every search that has passed
+ * since an entry was saved counts as AGE_WEIGHT plies less, so old entries are replaced before new ones.
+ */
+public class TranspositionTable
+{
+    public static final int DEFAULT_MEGABYTES = 16;
+    //The probe returns this if the position is not in the table, it is an entry without a bound.
+    public static final long NO_ENTRY = 0L;
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_BUCKET = ENTRIES_PER_BUCKET * LONGS_PER_ENTRY;
+    private static final int BYTES_PER_LONG = 8;
+    private static final long BYTES_PER_MEGABYTE = 1L << 20;
+    //The largest power of two that an array could hold.
+    private static final long MAX_LONGS = 1L << 30;
+
+    private static final int MOVE_BITS = 26;
+    private static final int SCORE_BITS = 16;
+    private static final int DEPTH_BITS = 8;
+    private static final int BOUND_BITS = 2;
+    private static final int AGE_BITS = 6;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + SCORE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int AGE_SHIFT = BOUND_SHIFT + BOUND_BITS;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+    private static final int MAX_DEPTH = (1 << DEPTH_BITS) - 1;
+    private static final long BOUND_MASK = (1L << BOUND_BITS) - 1;
+    private static final int AGE_MASK = (1 << AGE_BITS) - 1;
+    private static final int AGE_WEIGHT = 8;
+    //The share of the table that is filled is estimated from this many entries at the start of the table.
+    private static final int HASHFULL_SAMPLE = 1000;
+    private static final int PERMILLE = 1000;
+
+    private final long[] table;
+    private final long bucketMask;
+    private int age;
+
+    /**
+     * This is the constructor. The amount of buckets is the largest power of two that fits in the given memory.
+     * @param megabytes The largest amount of memory the table may use, at least 1.
+     */
+    public TranspositionTable(int megabytes) {
+	if (megabytes < 1) {
+	    throw new IllegalArgumentException("The size of the transposition table must be at least 1 MB");
+	}
+	long longs = Math.min(MAX_LONGS, Long.highestOneBit(megabytes * BYTES_PER_MEGABYTE / BYTES_PER_LONG));
+	table = new long[(int) longs];
+	bucketMask = longs / LONGS_PER_BUCKET - 1;
+	age = 0;
+    }
+
+    /**
+     * This method looks for the entry of a position.
+     * @param key The Zobrist key of the position.
+     * @return The data of the entry, which is read with getMove, getScore, getDepth and getBound, or NO_ENTRY if the
+     * position is not in the table.
+     */
+    public long probe(long key) {
+	int bucket = getBucketIndex(key);
+	for (int entry = bucket; entry < bucket + LONGS_PER_BUCKET; entry += LONGS_PER_ENTRY) {
+	    long data = table[entry + 1];
+	    if ((table[entry] ^ data) == key && getBound(data) != 0) {
+		return data;
+	    }
+	}
+	return NO_ENTRY;
+    }
+
+    /**
+     * This method saves what the search has found out about a position. An entry of the same position is always
+     * replaced, but its best move is kept if the new entry has none. Otherwise an empty entry is used, or the entry
+     * that is worth the least as described in the class comment.
+     * @param key The Zobrist key of the position.
+     * @param depth The depth the position was searched to.
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND.
+     * @param score The score, which has to fit in 16 bits.
+     * @param move The best move or PackedMove.NO_MOVE.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+	int bucket = getBucketIndex(key);
+	int replaced = bucket;
+	int lowestWorth = Integer.MAX_VALUE;
+	for (int entry = bucket; entry < bucket + LONGS_PER_BUCKET; entry += LONGS_PER_ENTRY) {
+	    long data = table[entry + 1];
+	    boolean isSamePosition = (table[entry] ^ data) == key;
+	    if (isSamePosition || getBound(data) == 0) {
+		if (isSamePosition && move == PackedMove.NO_MOVE) {
+		    move = getMove(data);
+		}
+		replaced = entry;
+		break;
+	    }
+	    int worth = getDepth(data) - AGE_WEIGHT * getRelativeAge(data);
+	    if (worth < lowestWorth) {
+		lowestWorth = worth;
+		replaced = entry;
+	    }
+	}
+	long data = (move & MOVE_MASK) | ((score & SCORE_MASK) << SCORE_SHIFT) |
+		    ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT) |
+		    ((long) age << AGE_SHIFT);
+	table[replaced] = key ^ data;
+	table[replaced + 1] = data;
+    }
+
+    /**
+     * This method tells the table that a new search starts, so that the entries of the earlier searches become older
+     * and are replaced first.
+     */
+    public void newSearch() {
+	age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * This method removes all entries.
+     */
+    public void clear() {
+	Arrays.fill(table, 0L);
+	age = 0;
+    }
+
+    /**
+     * This method estimates how much of the table is used by the current search, by looking at the first
+     * HASHFULL_SAMPLE entries.
+     * @return The share of the entries in permille.
+     */
+    public int getHashfull() {
+	int sample = (int) Math.min(HASHFULL_SAMPLE, getCapacity());
+	int used = 0;
+	for (int entry = 0; entry < sample * LONGS_PER_ENTRY; entry += LONGS_PER_ENTRY) {
+	    long data = table[entry + 1];
+	    if (getBound(data) != 0 && getRelativeAge(data) == 0) {
+		used++;
+	    }
+	}
+	return used * PERMILLE / sample;
+    }
+
+    /**
+     * This method returns the amount of entries that the table could hold.
+     * @return The amount of entries.
+     */
+    public long getCapacity() {
+	return table.length / LONGS_PER_ENTRY;
+    }
+
+    /**
+     * This method returns the memory used by the table.
+     * @return The size of the table in bytes.
+     */
+    public long getMemoryBytes() {
+	return (long) table.length * BYTES_PER_LONG;
+    }
+
+    public static int getMove(long data) {
+	return (int) (data & MOVE_MASK);
+    }
+
+    public static int getScore(long data) {
+	return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int getDepth(long data) {
+	return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int getBound(long data) {
+	return (int) ((data >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    /**
+     * This method returns how many searches have been started since an entry was saved.
+     * @param data The data of the entry.
+     * @return The amount of searches.
+     */
+    private int getRelativeAge(long data) {
+	return (age - (int) (data >>> AGE_SHIFT)) & AGE_MASK;
+    }
+
+    /**
+     * This method returns the index of the first long of the bucket of a key.
+     * @param key The Zobrist key of a position.
+     * @return The index in the table.
+     */
+    private int getBucketIndex(long key) {
+	return (int) (key & bucketMask) * LONGS_PER_BUCKET;
+    }
+}
@@ -0,0 +1,14 @@
+package se.liu.chrwa634.test;
+
+import se.liu.chrwa634.gui.GameFrame;
+import se.liu.chrwa634.pieces.Side;
+
+/**
+ * This class starts a game against the computer, which plays black. The computer thinks for two seconds on every move.
+ */
+public class ComputerOpponentTest
+{
+    public static void main(String[] args) {
+	new GameFrame("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", Side.BLACK);
+    }
+}